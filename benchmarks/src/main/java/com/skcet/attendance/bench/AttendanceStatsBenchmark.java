@@ -0,0 +1,57 @@
+package com.skcet.attendance.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skcet.attendance.controller.AttendanceController;
+import com.skcet.attendance.dto.AttendanceRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The admin read paths over Firestore records: status counting behind
+ * /api/attendance-stats and the JSON body of /api/list-attendance.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Benchmark)
+public class AttendanceStatsBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    public int recordCount;
+
+    private List<AttendanceRecord> records;
+    private ObjectMapper objectMapper;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        records = BenchmarkFixtures.attendanceRecords(recordCount);
+        // Same defaults as the ObjectMapper Spring MVC uses for response bodies
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    @Benchmark
+    public AttendanceController.AttendanceStats attendanceStats() {
+        return AttendanceController.AttendanceStats.of(records);
+    }
+
+    @Benchmark
+    public byte[] listAttendanceJson() throws Exception {
+        return objectMapper.writeValueAsBytes(records);
+    }
+}
@@ -0,0 +1,102 @@
+package com.skcet.attendance.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skcet.attendance.dto.AttendanceInfo;
+import com.skcet.attendance.dto.AttendanceRecord;
+import com.skcet.attendance.service.AttendanceQueryCache;
+import com.skcet.attendance.service.AttendanceService;
+import com.skcet.attendance.service.AttendanceWriter;
+import com.skcet.attendance.service.ClassSessionResolver;
+import com.skcet.attendance.service.InMemoryAttendanceStore;
+import com.skcet.attendance.service.RedemptionIndex;
+import com.skcet.attendance.service.TokenKeyring;
+import com.skcet.attendance.service.TokenService;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Shared inputs for the benchmarks. Everything is built the way the application
+ * builds it, minus Spring: services are constructed directly over the in-memory
+ * attendance store so only our own code is measured.
+ */
+final class BenchmarkFixtures {
+
+    static final long QR_TTL_MS = 300_000;
+    static final long ROTATING_MAX_DURATION_MS = 3_600_000;
+
+    // Keys configured for the benchmarks only, as qr.keys / qr.legacy.* would be
+    private static final String BENCHMARK_KEYS = "1:benchmark-secret";
+    private static final String BENCHMARK_LEGACY_SECRET = "benchmark-legacy-secret";
+    private static final String LEGACY_ACCEPT_UNTIL = "2999-01-01T00:00:00Z";
+
+    private static final String[] STATUSES = {"present", "present", "present", "late", "absent"};
+
+    private BenchmarkFixtures() {}
+
+    // Legacy tokens enabled, so legacyToken() validates against this service
+    static TokenService tokenService() {
+        TokenKeyring keyring = new TokenKeyring(BENCHMARK_KEYS, 1, "", 0,
+                true, BENCHMARK_LEGACY_SECRET, LEGACY_ACCEPT_UNTIL);
+        return new TokenService(keyring, QR_TTL_MS, ROTATING_MAX_DURATION_MS);
+    }
+
+    // QR payload whose free-text fields (staff, course, location) are fieldLength chars each
+    static AttendanceInfo attendanceInfo(int fieldLength) {
+        return new AttendanceInfo("1042", text("Staff ", fieldLength), "III-CSE-A", "2024-09-16", "3",
+                "10:40", "11:30", "2207", text("Course ", fieldLength), text("Block ", fieldLength), "QR");
+    }
+
+    // Token in the pre-binary format: Base64("{json}_" + Base64(HMAC(json))), signed with the benchmark legacy secret
+    static String legacyToken(AttendanceInfo info) throws Exception {
+        TokenService.AttendancePayload payload = new TokenService.AttendancePayload(
+                System.currentTimeMillis(), "legacy-nonce",
+                info.getStaffId(), info.getStaffName(), info.getSessionDate(), info.getPeriod(),
+                info.getStartTime(), info.getEndTime(), info.getCourseId(), info.getCourseName(),
+                info.getLocation(), info.getAttendanceType(), info.getClassName());
+        String json = new ObjectMapper().writeValueAsString(payload);
+
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(BENCHMARK_LEGACY_SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        String signature = Base64.getEncoder().encodeToString(mac.doFinal(json.getBytes(StandardCharsets.UTF_8)));
+        return Base64.getEncoder().encodeToString((json + "_" + signature).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Firestore-style records with a fixed status mix (60% present, 20% late, 20% absent)
+    static List<AttendanceRecord> attendanceRecords(int count) {
+        Random random = new Random(42);
+        LocalDateTime start = LocalDateTime.of(2024, 9, 16, 8, 30);
+        List<AttendanceRecord> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String email = "student" + (i % 600) + "@skcet.ac.in";
+            String status = STATUSES[random.nextInt(STATUSES.length)];
+            double confidence = 0.5 + random.nextDouble() / 2;
+            records.add(new AttendanceRecord("att-" + i, email, "Student " + (i % 600), "III-CSE-A", status,
+                    start.plusMinutes(i), "session-" + (i / 60), confidence));
+        }
+        return records;
+    }
+
+    // Marking, stats and listings over a fresh InMemoryAttendanceStore, so no database is involved
+    static AttendanceService attendanceService(TokenService tokenService) {
+        InMemoryAttendanceStore store = new InMemoryAttendanceStore();
+        return new AttendanceService(store, tokenService, new RedemptionIndex(),
+                new AttendanceWriter(store, false, 0, 0, 0), new ClassSessionResolver(store, 50_000),
+                new AttendanceQueryCache(30, 10_000, 0));
+    }
+
+    private static String text(String prefix, int length) {
+        StringBuilder sb = new StringBuilder(length).append(prefix);
+        while (sb.length() < length) {
+            sb.append((char) ('a' + sb.length() % 26));
+        }
+        sb.setLength(length);
+        return sb.toString();
+    }
+}
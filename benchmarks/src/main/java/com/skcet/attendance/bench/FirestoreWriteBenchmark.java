@@ -0,0 +1,98 @@
+package com.skcet.attendance.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skcet.attendance.dto.AttendanceRecord;
+import com.skcet.attendance.service.FirestoreService;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A burst of attendance saves through FirestoreService against an in-memory stand-in
+ * whose commit costs a fixed round trip. Shows how long a burst takes to be
+ * acknowledged and, as the secondary {@code commits} and {@code bursts} results
+ * (totals per iteration), how many commit RPCs a burst turns into.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FirestoreWriteBenchmark {
+
+    private static final int BURST = 1000;
+
+    @Param({"1", "200"})
+    public int maxBatch;
+
+    @Param({"5"})
+    public long commitLatencyMs;
+
+    // Incremented on the batcher thread
+    private final AtomicLong commits = new AtomicLong();
+    private FirestoreService firestoreService;
+
+    // Reported by JMH next to the score; commits / bursts is the number of commit RPCs per burst
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Commits {
+        public long commits;
+        public long bursts;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            commits = 0;
+            bursts = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        long latencyNanos = TimeUnit.MILLISECONDS.toNanos(commitLatencyMs);
+        firestoreService = new FirestoreService(null, new ObjectMapper(), 10, maxBatch, 10, 5000) {
+            @Override
+            protected List<AttendanceRecord> commitAttendance(List<AttendanceRecord> records) {
+                LockSupport.parkNanos(latencyNanos);
+                commits.incrementAndGet();
+                return records;
+            }
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        firestoreService.shutdown();
+    }
+
+    @Benchmark
+    public Object burst(Commits counters) {
+        long before = commits.get();
+        CompletableFuture<?>[] saves = new CompletableFuture<?>[BURST];
+        for (int i = 0; i < BURST; i++) {
+            saves[i] = firestoreService.saveAttendance("727622bcs" + i + "@skcet.ac.in", "session-" + i, 0.9);
+        }
+        Object done = CompletableFuture.allOf(saves).join();
+        // Every save is acknowledged only after its commit, so all of the burst's commits are counted
+        counters.commits += commits.get() - before;
+        counters.bursts++;
+        return done;
+    }
+}
@@ -0,0 +1,73 @@
+package com.skcet.attendance.bench;
+
+import com.skcet.attendance.service.AttendanceService;
+import com.skcet.attendance.service.TokenService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AttendanceService.markAttendanceFromToken against the in-memory store: token
+ * validation, the redemption check, session resolution and the upsert, without
+ * database latency.
+ *
+ * Every call needs a (token, student) pair that has not been redeemed yet, so each
+ * iteration starts with a fresh redemption index and walks tokens x students.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Thread)
+public class MarkAttendanceBenchmark {
+
+    private static final int TOKENS = 1024;
+    private static final int STUDENTS = 16384;
+
+    @Param({"16", "64", "256"})
+    public int fieldLength;
+
+    private TokenService tokenService;
+    private AttendanceService attendanceService;
+    private String[] tokens;
+    private String[] students;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tokenService = BenchmarkFixtures.tokenService();
+        students = new String[STUDENTS];
+        for (int i = 0; i < STUDENTS; i++) {
+            students[i] = "727622bcs" + i + "@skcet.ac.in";
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void resetIteration() {
+        attendanceService = BenchmarkFixtures.attendanceService(tokenService);
+        tokens = new String[TOKENS];
+        for (int i = 0; i < TOKENS; i++) {
+            tokens[i] = tokenService.generateToken(BenchmarkFixtures.attendanceInfo(fieldLength));
+        }
+        next = 0;
+    }
+
+    @Benchmark
+    public AttendanceService.MarkResult markAttendanceFromToken() {
+        int i = next++;
+        return attendanceService.markAttendanceFromToken(
+                students[(i / TOKENS) % STUDENTS], tokens[i % TOKENS]);
+    }
+}
@@ -0,0 +1,71 @@
+package com.skcet.attendance.bench;
+
+import com.skcet.attendance.dto.AttendanceInfo;
+import com.skcet.attendance.service.TokenService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TokenService.generateToken / validateToken for the binary format and for legacy
+ * JSON tokens, by size of the free-text QR fields.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Benchmark)
+public class TokenBenchmark {
+
+    @Param({"16", "64", "256"})
+    public int fieldLength;
+
+    private TokenService tokenService;
+    private AttendanceInfo info;
+    private String token;
+    private String legacyToken;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tokenService = BenchmarkFixtures.tokenService();
+        info = BenchmarkFixtures.attendanceInfo(fieldLength);
+    }
+
+    // Tokens expire after qr.ttl.ms, so mint fresh ones for every iteration
+    @Setup(Level.Iteration)
+    public void mintTokens() throws Exception {
+        token = tokenService.generateToken(info);
+        legacyToken = BenchmarkFixtures.legacyToken(info);
+        // A rejected token would only measure the failure path
+        if (tokenService.validateToken(token) == null || tokenService.validateToken(legacyToken) == null) {
+            throw new IllegalStateException("Benchmark tokens do not validate");
+        }
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return tokenService.generateToken(info);
+    }
+
+    @Benchmark
+    public TokenService.AttendancePayload validateToken() {
+        return tokenService.validateToken(token);
+    }
+
+    @Benchmark
+    public TokenService.AttendancePayload validateLegacyJsonToken() {
+        return tokenService.validateToken(legacyToken);
+    }
+}
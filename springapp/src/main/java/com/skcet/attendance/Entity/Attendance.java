@@ -1,22 +1,39 @@
 package com.skcet.attendance.Entity;
 
 import jakarta.persistence.*;
+
+import java.time.LocalDate;
+
+// Schema is owned by the Flyway migrations in db/migration; Hibernate only validates it
 @Entity
-@Table(name = "attendance")
+@Table(name = "attendance",
+        uniqueConstraints = @UniqueConstraint(name = "uk_attendance_student_session",
+                columnNames = {"studentEmail", "session_id"}),
+        indexes = {
+                // Student summaries over a date range, without touching class_session
+                @Index(name = "idx_attendance_student_date_present",
+                        columnList = "studentEmail, session_date, present"),
+                // Class listings and exports; entries end with the primary key, so pages come in id order
+                @Index(name = "idx_attendance_session", columnList = "session_id")
+        })
 public class Attendance {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Natural key: one row per student per class session
+    @Column(nullable = false, length = 255)
     private String studentEmail;
 
-    // Admin/QR payload
-    private String staffId;
-    private String staffName;
-    private String className;
-    private String sessionDate;  // yyyy-MM-dd
-    private String period;
+    // Class, date, period and staff live on the session row
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "session_id", nullable = false)
+    private ClassSession session;
+
+    // Copy of session.sessionDate for the summary index; written by the JDBC upsert
+    @Column(name = "session_date", nullable = false, insertable = false, updatable = false)
+    private LocalDate sessionDate;
 
     private boolean present;  // true = present, false = absent
 
@@ -36,46 +53,18 @@ public class Attendance {
         this.studentEmail = studentEmail;
     }
 
-    public String getStaffId() {
-        return staffId;
-    }
-
-    public void setStaffId(String staffId) {
-        this.staffId = staffId;
+    public ClassSession getSession() {
+        return session;
     }
 
-    public String getStaffName() {
-        return staffName;
+    public void setSession(ClassSession session) {
+        this.session = session;
     }
 
-    public void setStaffName(String staffName) {
-        this.staffName = staffName;
-    }
-
-    public String getClassName() {
-        return className;
-    }
-
-    public void setClassName(String className) {
-        this.className = className;
-    }
-
-    public String getSessionDate() {
+    public LocalDate getSessionDate() {
         return sessionDate;
     }
 
-    public void setSessionDate(String sessionDate) {
-        this.sessionDate = sessionDate;
-    }
-
-    public String getPeriod() {
-        return period;
-    }
-
-    public void setPeriod(String period) {
-        this.period = period;
-    }
-
     public boolean isPresent() {
         return present;
     }
@@ -83,8 +72,4 @@ public class Attendance {
     public void setPresent(boolean present) {
         this.present = present;
     }
-
-    // Getters + Setters
-
-    
 }
@@ -0,0 +1,81 @@
+package com.skcet.attendance.Entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+// Running present/absent totals per class and session date; maintained with every mark
+@Entity
+@Table(name = "attendance_class_day_counter")
+@IdClass(ClassDayAttendanceCounter.Key.class)
+public class ClassDayAttendanceCounter {
+
+    @Id
+    @Column(length = 64)
+    private String className;
+
+    @Id
+    private LocalDate sessionDate;
+
+    private long presentCount;
+    private long absentCount;
+
+    public String getClassName() {
+        return className;
+    }
+
+    public void setClassName(String className) {
+        this.className = className;
+    }
+
+    public LocalDate getSessionDate() {
+        return sessionDate;
+    }
+
+    public void setSessionDate(LocalDate sessionDate) {
+        this.sessionDate = sessionDate;
+    }
+
+    public long getPresentCount() {
+        return presentCount;
+    }
+
+    public void setPresentCount(long presentCount) {
+        this.presentCount = presentCount;
+    }
+
+    public long getAbsentCount() {
+        return absentCount;
+    }
+
+    public void setAbsentCount(long absentCount) {
+        this.absentCount = absentCount;
+    }
+
+    public static class Key implements Serializable {
+        private String className;
+        private LocalDate sessionDate;
+
+        public Key() {}
+
+        public Key(String className, LocalDate sessionDate) {
+            this.className = className;
+            this.sessionDate = sessionDate;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return Objects.equals(className, key.className) && Objects.equals(sessionDate, key.sessionDate);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(className, sessionDate);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.skcet.attendance.Entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+
+// One class period on one day; attendance rows reference it instead of repeating its columns
+@Entity
+@Table(name = "class_session",
+        uniqueConstraints = @UniqueConstraint(name = "uk_class_session",
+                columnNames = {"className", "sessionDate", "period"}))
+public class ClassSession {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 64)
+    private String className;
+    @Column(nullable = false)
+    private LocalDate sessionDate;
+    @Column(nullable = false)
+    private Short period;  // 1-based period of the day
+
+    // Staff who opened the session (the first mark for it)
+    private String staffId;
+    private String staffName;
+
+    public ClassSession() {}
+
+    public ClassSession(Long id, String className, LocalDate sessionDate, Short period,
+                        String staffId, String staffName) {
+        this.id = id;
+        this.className = className;
+        this.sessionDate = sessionDate;
+        this.period = period;
+        this.staffId = staffId;
+        this.staffName = staffName;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    public void setClassName(String className) {
+        this.className = className;
+    }
+
+    public LocalDate getSessionDate() {
+        return sessionDate;
+    }
+
+    public void setSessionDate(LocalDate sessionDate) {
+        this.sessionDate = sessionDate;
+    }
+
+    public Short getPeriod() {
+        return period;
+    }
+
+    public void setPeriod(Short period) {
+        this.period = period;
+    }
+
+    public String getStaffId() {
+        return staffId;
+    }
+
+    public void setStaffId(String staffId) {
+        this.staffId = staffId;
+    }
+
+    public String getStaffName() {
+        return staffName;
+    }
+
+    public void setStaffName(String staffName) {
+        this.staffName = staffName;
+    }
+
+    // QR payloads and forms carry dates as yyyy-MM-dd strings
+    public static LocalDate parseSessionDate(String sessionDate) {
+        if (sessionDate == null) {
+            throw new IllegalArgumentException("sessionDate is required");
+        }
+        return LocalDate.parse(sessionDate.trim());
+    }
+
+    // Accepts "3" as well as labels like "P3" or "Period 3"
+    public static Short parsePeriod(String period) {
+        if (period != null) {
+            for (int i = 0; i < period.length(); i++) {
+                if (Character.isDigit(period.charAt(i))) {
+                    int end = i;
+                    while (end < period.length() && end - i < 4 && Character.isDigit(period.charAt(end))) {
+                        end++;
+                    }
+                    short value = Short.parseShort(period.substring(i, end));
+                    if (value > 0) {
+                        return value;
+                    }
+                    break;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Invalid period: " + period);
+    }
+}
@@ -0,0 +1,110 @@
+package com.skcet.attendance.Entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+// Running present/absent totals per student, class and term; maintained with every mark
+@Entity
+@Table(name = "attendance_student_counter")
+@IdClass(StudentAttendanceCounter.Key.class)
+public class StudentAttendanceCounter {
+
+    @Id
+    @Column(length = 255)
+    private String studentEmail;
+
+    @Id
+    @Column(length = 64)
+    private String className;
+
+    @Id
+    @Column(length = 16)
+    private String term;
+
+    private long presentCount;
+    private long absentCount;
+
+    /**
+     * Academic term of a session date: July-December is the odd semester and
+     * January-June the even semester of the academic year that began in July,
+     * e.g. 2024-09-16 -> "2024-25/ODD", 2025-02-03 -> "2024-25/EVEN".
+     * V2__typed_session_columns.sql computes the same value when backfilling.
+     */
+    public static String termOf(LocalDate sessionDate) {
+        int month = sessionDate.getMonthValue();
+        int startYear = month >= 7 ? sessionDate.getYear() : sessionDate.getYear() - 1;
+        return startYear + "-" + String.format("%02d", (startYear + 1) % 100) + (month >= 7 ? "/ODD" : "/EVEN");
+    }
+
+    public String getStudentEmail() {
+        return studentEmail;
+    }
+
+    public void setStudentEmail(String studentEmail) {
+        this.studentEmail = studentEmail;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    public void setClassName(String className) {
+        this.className = className;
+    }
+
+    public String getTerm() {
+        return term;
+    }
+
+    public void setTerm(String term) {
+        this.term = term;
+    }
+
+    public long getPresentCount() {
+        return presentCount;
+    }
+
+    public void setPresentCount(long presentCount) {
+        this.presentCount = presentCount;
+    }
+
+    public long getAbsentCount() {
+        return absentCount;
+    }
+
+    public void setAbsentCount(long absentCount) {
+        this.absentCount = absentCount;
+    }
+
+    public static class Key implements Serializable {
+        private String studentEmail;
+        private String className;
+        private String term;
+
+        public Key() {}
+
+        public Key(String studentEmail, String className, String term) {
+            this.studentEmail = studentEmail;
+            this.className = className;
+            this.term = term;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return Objects.equals(studentEmail, key.studentEmail)
+                    && Objects.equals(className, key.className)
+                    && Objects.equals(term, key.term);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(studentEmail, className, term);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.skcet.attendance.Repo;
+
+import com.skcet.attendance.Entity.Attendance;
+import com.skcet.attendance.Entity.ClassSession;
+import com.skcet.attendance.Entity.StudentAttendanceCounter;
+import com.skcet.attendance.Repo.AttendanceJdbcRepository.UpsertResult;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps attendance_student_counter and attendance_class_day_counter in step with the
+ * attendance table. Deltas are applied inside the caller's transaction, so a mark and
+ * its counter updates commit or roll back together.
+ */
+@Repository
+@ConditionalOnProperty(name = "attendance.store", havingValue = "jpa", matchIfMissing = true)
+public class AttendanceCounterJdbcRepository {
+
+    private static final String STUDENT_DELTA_SQL =
+            "INSERT INTO attendance_student_counter (student_email, class_name, term, present_count, absent_count) "
+                    + "VALUES (?, ?, ?, ?, ?) "
+                    + "ON DUPLICATE KEY UPDATE present_count = present_count + VALUES(present_count), "
+                    + "absent_count = absent_count + VALUES(absent_count)";
+
+    private static final String CLASS_DAY_DELTA_SQL =
+            "INSERT INTO attendance_class_day_counter (class_name, session_date, present_count, absent_count) "
+                    + "VALUES (?, ?, ?, ?) "
+                    + "ON DUPLICATE KEY UPDATE present_count = present_count + VALUES(present_count), "
+                    + "absent_count = absent_count + VALUES(absent_count)";
+
+    private static final String REBUILD_CLASS_DAY_SQL =
+            "INSERT INTO attendance_class_day_counter (class_name, session_date, present_count, absent_count) "
+                    + "SELECT s.class_name, s.session_date, "
+                    + "SUM(CASE WHEN a.present THEN 1 ELSE 0 END), SUM(CASE WHEN a.present THEN 0 ELSE 1 END) "
+                    + "FROM attendance a JOIN class_session s ON s.id = a.session_id "
+                    + "GROUP BY s.class_name, s.session_date";
+
+    // Same term as StudentAttendanceCounter.termOf: academic year from July, "/ODD" from July, "/EVEN" before
+    private static final String REBUILD_STUDENT_SQL =
+            "INSERT INTO attendance_student_counter (student_email, class_name, term, present_count, absent_count) "
+                    + "SELECT student_email, class_name, "
+                    + "CONCAT(start_year, '-', RIGHT(CONCAT('0', MOD(start_year + 1, 100)), 2), "
+                    + "CASE WHEN odd = 1 THEN '/ODD' ELSE '/EVEN' END), "
+                    + "SUM(present), COUNT(*) - SUM(present) "
+                    + "FROM (SELECT a.student_email, s.class_name, "
+                    + "CASE WHEN a.present THEN 1 ELSE 0 END AS present, "
+                    + "CASE WHEN MONTH(s.session_date) >= 7 THEN 1 ELSE 0 END AS odd, "
+                    + "CASE WHEN MONTH(s.session_date) >= 7 THEN YEAR(s.session_date) ELSE YEAR(s.session_date) - 1 END AS start_year "
+                    + "FROM attendance a JOIN class_session s ON s.id = a.session_id) t "
+                    + "GROUP BY student_email, class_name, start_year, odd";
+
+    // Key parts are Strings and LocalDates, compared position by position
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final Comparator<List<Object>> KEY_ORDER = (a, b) -> {
+        for (int i = 0; i < a.size(); i++) {
+            int c = ((Comparable) a.get(i)).compareTo(b.get(i));
+            if (c != 0) {
+                return c;
+            }
+        }
+        return 0;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AttendanceCounterJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Applies the counter changes implied by upserting {@code rows} with the given
+     * results: a new row adds one to its side, a flipped row moves one from the other
+     * side, an unchanged row does nothing. Deltas are summed per key first so a batch
+     * touches each counter row once.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void apply(List<Attendance> rows, List<UpsertResult> results) {
+        Map<List<Object>, long[]> studentDeltas = new HashMap<>();
+        Map<List<Object>, long[]> classDayDeltas = new HashMap<>();
+
+        for (int i = 0; i < rows.size(); i++) {
+            UpsertResult result = results.get(i);
+            if (result == UpsertResult.UNCHANGED) {
+                continue;
+            }
+            Attendance row = rows.get(i);
+            ClassSession session = row.getSession();
+            long present = row.isPresent() ? 1 : (result == UpsertResult.UPDATED ? -1 : 0);
+            long absent = !row.isPresent() ? 1 : (result == UpsertResult.UPDATED ? -1 : 0);
+            add(studentDeltas, studentKey(row.getStudentEmail(), session.getClassName(), session.getSessionDate()),
+                    present, absent);
+            add(classDayDeltas, classDayKey(session.getClassName(), session.getSessionDate()), present, absent);
+        }
+
+        writeDeltas(STUDENT_DELTA_SQL, studentDeltas);
+        writeDeltas(CLASS_DAY_DELTA_SQL, classDayDeltas);
+    }
+
+    /**
+     * Recomputes both counter tables from the raw attendance rows and returns the
+     * number of rows counted. Everything runs in the database, as a DELETE and an
+     * INSERT ... SELECT ... GROUP BY per table in one transaction, so no rows pass
+     * through the JVM. The counters are deleted first: marks that commit while the
+     * rebuild runs then wait on those row locks and add their delta afterwards, on top
+     * of a snapshot that did not include them.
+     */
+    @Transactional
+    public long rebuild() {
+        jdbcTemplate.update("DELETE FROM attendance_student_counter");
+        jdbcTemplate.update("DELETE FROM attendance_class_day_counter");
+        jdbcTemplate.update(REBUILD_CLASS_DAY_SQL);
+        jdbcTemplate.update(REBUILD_STUDENT_SQL);
+        Long rows = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(present_count + absent_count), 0) FROM attendance_class_day_counter", Long.class);
+        return rows != null ? rows : 0;
+    }
+
+    // Class and session date are NOT NULL in class_session, so keys are always complete
+    private static List<Object> studentKey(String studentEmail, String className, LocalDate sessionDate) {
+        return List.of(studentEmail, className, StudentAttendanceCounter.termOf(sessionDate));
+    }
+
+    private static List<Object> classDayKey(String className, LocalDate sessionDate) {
+        return List.of(className, sessionDate);
+    }
+
+    private static void add(Map<List<Object>, long[]> deltas, List<Object> key, long present, long absent) {
+        long[] delta = deltas.computeIfAbsent(key, k -> new long[2]);
+        delta[0] += present;
+        delta[1] += absent;
+    }
+
+    private void writeDeltas(String sql, Map<List<Object>, long[]> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        // Fixed key order so concurrent writers lock counter rows in the same order
+        List<Map.Entry<List<Object>, long[]>> entries = new ArrayList<>(deltas.entrySet());
+        entries.sort(Map.Entry.comparingByKey(KEY_ORDER));
+
+        List<Object[]> args = new ArrayList<>(entries.size());
+        for (Map.Entry<List<Object>, long[]> entry : entries) {
+            List<Object> key = entry.getKey();
+            Object[] row = new Object[key.size() + 2];
+            for (int i = 0; i < key.size(); i++) {
+                row[i] = key.get(i);
+            }
+            row[key.size()] = entry.getValue()[0];
+            row[key.size() + 1] = entry.getValue()[1];
+            args.add(row);
+        }
+        jdbcTemplate.batchUpdate(sql, args);
+    }
+}
@@ -0,0 +1,106 @@
+package com.skcet.attendance.Repo;
+
+import com.skcet.attendance.Entity.Attendance;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Attendance writes that bypass Hibernate: an idempotent upsert on the
+ * (student_email, session_id) unique key, single or as a run of statements on one
+ * connection, plus the matching counter updates in the same transaction. JPA can
+ * neither batch IDENTITY inserts nor express the upsert.
+ *
+ * What each upsert did comes from its own affected-row count: 1 for an insert, 2 for
+ * a changed row and 0 for a row already in that state. MySQL reports 0 only with
+ * {@code useAffectedRows=true} on the connection URL (found-rows counts would make a
+ * re-scan look like an insert); H2 in MySQL mode counts the same way. Each row is its
+ * own statement rather than a JDBC batch because {@code rewriteBatchedStatements=true}
+ * merges a batch into one INSERT with a single count. A re-scan is therefore one probe
+ * of the unique key, with no read before the write; rows run in key order so two
+ * batches lock shared keys in the same order.
+ */
+@Repository
+@ConditionalOnProperty(name = "attendance.store", havingValue = "jpa", matchIfMissing = true)
+public class AttendanceJdbcRepository {
+
+    public enum UpsertResult { INSERTED, UPDATED, UNCHANGED }
+
+    // A re-scan keeps the first row; only a change of presence (e.g. absent -> present) updates it
+    private static final String UPSERT_SQL =
+            "INSERT INTO attendance (student_email, session_id, session_date, present) "
+                    + "VALUES (?, ?, ?, ?) "
+                    + "ON DUPLICATE KEY UPDATE present = VALUES(present)";
+
+    // student_email compares case-insensitively in MySQL's default collation
+    private static final Comparator<Attendance> KEY_ORDER = Comparator
+            .comparing((Attendance row) -> row.getStudentEmail().toLowerCase(Locale.ROOT))
+            .thenComparingLong(row -> row.getSession().getId());
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AttendanceCounterJdbcRepository counters;
+
+    public AttendanceJdbcRepository(JdbcTemplate jdbcTemplate, AttendanceCounterJdbcRepository counters) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.counters = counters;
+    }
+
+    // The row and its counter updates commit together
+    @Transactional
+    public UpsertResult upsert(Attendance row) {
+        return upsertAll(List.of(row)).get(0);
+    }
+
+    // One statement per row, their counter updates and one commit; results are in the order of rows
+    @Transactional
+    public List<UpsertResult> upsertAll(List<Attendance> rows) {
+        // Stable sort: a key repeated within the batch keeps its order and sees the earlier write
+        Integer[] order = new Integer[rows.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(rows::get, KEY_ORDER));
+
+        UpsertResult[] results = new UpsertResult[rows.size()];
+        jdbcTemplate.execute(UPSERT_SQL, (PreparedStatementCallback<Void>) ps -> {
+            for (int i : order) {
+                bind(ps, rows.get(i));
+                results[i] = resultOf(ps.executeUpdate());
+            }
+            return null;
+        });
+
+        List<UpsertResult> inOrder = Arrays.asList(results);
+        counters.apply(rows, inOrder);
+        return inOrder;
+    }
+
+    private static UpsertResult resultOf(int affectedRows) {
+        switch (affectedRows) {
+            case 1:
+                return UpsertResult.INSERTED;
+            case 2:
+                return UpsertResult.UPDATED;
+            case 0:
+                return UpsertResult.UNCHANGED;
+            default:
+                throw new IllegalStateException("Unexpected affected-row count from attendance upsert: " + affectedRows);
+        }
+    }
+
+    private static void bind(PreparedStatement ps, Attendance att) throws SQLException {
+        ps.setString(1, att.getStudentEmail());
+        ps.setLong(2, att.getSession().getId());
+        ps.setObject(3, att.getSession().getSessionDate());
+        ps.setBoolean(4, att.isPresent());
+    }
+}
@@ -1,10 +1,20 @@
 package com.skcet.attendance.Repo;
 
 import com.skcet.attendance.Entity.Attendance;
+import com.skcet.attendance.dto.ClassAttendanceRow;
+import com.skcet.attendance.dto.StudentAttendanceReportRow;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
@@ -21,13 +31,61 @@ public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
     // Optional: fetch all attendance for a student
     List<Attendance> findByStudentEmail(String studentEmail);
 
-    List<Attendance> findByClassNameAndSessionDateAndPeriod(String className, String sessionDate, String period);
+    // Keyset page of one class session: rows with id > afterId in id order, only the listed columns.
+    // One uk_class_session lookup, then a seek on idx_attendance_session, whose entries end with the primary key.
+    @Query("SELECT new com.skcet.attendance.dto.ClassAttendanceRow("
+            + "a.id, a.studentEmail, s.staffId, s.staffName, s.sessionDate, s.period, a.present) "
+            + "FROM Attendance a JOIN a.session s "
+            + "WHERE s.className = :className AND s.sessionDate = :sessionDate AND s.period = :period "
+            + "AND a.id > :afterId ORDER BY a.id")
+    List<ClassAttendanceRow> findClassSessionPage(@Param("className") String className,
+                                                  @Param("sessionDate") LocalDate sessionDate,
+                                                  @Param("period") Short period,
+                                                  @Param("afterId") long afterId,
+                                                  Pageable page);
 
-    // New methods for stats with date
-    int countByStudentEmailAndSessionDate(String studentEmail, String date);
+    // All periods of a class over [from, to] in index order, streamed row by row (MySQL streams
+    // result sets when the fetch size is Integer.MIN_VALUE). Needs an open transaction.
+    @Query("SELECT new com.skcet.attendance.dto.ClassAttendanceRow("
+            + "a.id, a.studentEmail, s.staffId, s.staffName, s.sessionDate, s.period, a.present) "
+            + "FROM Attendance a JOIN a.session s "
+            + "WHERE s.className = :className AND s.sessionDate BETWEEN :from AND :to "
+            + "ORDER BY s.sessionDate, s.period, a.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    Stream<ClassAttendanceRow> streamClassRange(@Param("className") String className,
+                                                @Param("from") LocalDate from,
+                                                @Param("to") LocalDate to);
 
-    int countByStudentEmailAndPresentTrueAndSessionDate(String studentEmail, String date);
+    // Per-student totals for the given classes over [from, to], aggregated in one pass and ordered by
+    // class then student. Sessions come from a uk_class_session range, their rows from idx_attendance_session.
+    // The denominator is the sessions the class held (another uk_class_session range per group), not the
+    // student's rows, which QR attendance only writes for present students.
+    @Query("SELECT new com.skcet.attendance.dto.StudentAttendanceReportRow(s.className, a.studentEmail, "
+            + "SUM(CASE WHEN a.present = true THEN 1 ELSE 0 END), "
+            + "(SELECT COUNT(h) FROM ClassSession h "
+            + "WHERE h.className = s.className AND h.sessionDate BETWEEN :from AND :to)) "
+            + "FROM Attendance a JOIN a.session s "
+            + "WHERE s.className IN :classNames AND s.sessionDate BETWEEN :from AND :to "
+            + "GROUP BY s.className, a.studentEmail "
+            + "ORDER BY s.className, a.studentEmail")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    Stream<StudentAttendanceReportRow> streamClassReport(@Param("classNames") List<String> classNames,
+                                                         @Param("from") LocalDate from,
+                                                         @Param("to") LocalDate to);
 
-    int countByStudentEmailAndPresentFalseAndSessionDate(String studentEmail, String date);
+    // Total and present counts for a student over [from, to] in one query: a range of
+    // idx_attendance_student_date_present, which covers it, so neither rows nor sessions are read.
+    @Query("SELECT COUNT(a) AS total, "
+            + "COALESCE(SUM(CASE WHEN a.present = true THEN 1 ELSE 0 END), 0) AS present "
+            + "FROM Attendance a "
+            + "WHERE a.studentEmail = :studentEmail AND a.sessionDate BETWEEN :from AND :to")
+    StudentSummary summarizeByStudentEmail(@Param("studentEmail") String studentEmail,
+                                           @Param("from") LocalDate from,
+                                           @Param("to") LocalDate to);
+
+    interface StudentSummary {
+        long getTotal();
+        long getPresent();
+    }
 
 }
@@ -0,0 +1,10 @@
+package com.skcet.attendance.Repo;
+
+import com.skcet.attendance.Entity.ClassDayAttendanceCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ClassDayAttendanceCounterRepository
+        extends JpaRepository<ClassDayAttendanceCounter, ClassDayAttendanceCounter.Key> {
+}
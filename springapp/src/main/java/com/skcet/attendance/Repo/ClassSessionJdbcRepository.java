@@ -0,0 +1,66 @@
+package com.skcet.attendance.Repo;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+
+// Lookup-or-create of class_session rows by their (class_name, session_date, period) key
+@Repository
+@ConditionalOnProperty(name = "attendance.store", havingValue = "jpa", matchIfMissing = true)
+public class ClassSessionJdbcRepository {
+
+    private static final String FIND_SQL =
+            "SELECT id FROM class_session WHERE class_name = ? AND session_date = ? AND period = ?";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO class_session (class_name, session_date, period, staff_id, staff_name) "
+                    + "VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ClassSessionJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Id of the session, creating it with the given staff if it does not exist yet
+    public long findOrCreate(String className, LocalDate sessionDate, short period,
+                             String staffId, String staffName) {
+        Long id = find(className, sessionDate, period);
+        if (id != null) {
+            return id;
+        }
+        try {
+            KeyHolder keys = new GeneratedKeyHolder();
+            jdbcTemplate.update(con -> {
+                PreparedStatement ps = con.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
+                ps.setString(1, className);
+                ps.setObject(2, sessionDate);
+                ps.setShort(3, period);
+                ps.setString(4, staffId);
+                ps.setString(5, staffName);
+                return ps;
+            }, keys);
+            return keys.getKey().longValue();
+        } catch (DuplicateKeyException e) {
+            // Created concurrently by another request or instance
+            id = find(className, sessionDate, period);
+            if (id == null) {
+                throw e;
+            }
+            return id;
+        }
+    }
+
+    private Long find(String className, LocalDate sessionDate, short period) {
+        List<Long> ids = jdbcTemplate.queryForList(FIND_SQL, Long.class, className, sessionDate, period);
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+}
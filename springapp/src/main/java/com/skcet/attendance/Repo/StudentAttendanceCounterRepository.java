@@ -0,0 +1,15 @@
+package com.skcet.attendance.Repo;
+
+import com.skcet.attendance.Entity.StudentAttendanceCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface StudentAttendanceCounterRepository
+        extends JpaRepository<StudentAttendanceCounter, StudentAttendanceCounter.Key> {
+
+    // One row per class the student attends in that term (primary key prefix scan)
+    List<StudentAttendanceCounter> findByStudentEmailAndTerm(String studentEmail, String term);
+}
@@ -21,6 +21,8 @@ public class CorsConfig {
         config.setAllowedOrigins(List.of(allowedOrigin , "http://192.168.1.8:5173"));
         config.setAllowedMethods(List.of("GET","POST","PUT","DELETE","OPTIONS"));
         config.setAllowedHeaders(List.of("*"));
+        // Cursor of paged listings (/api/attendance/admin/class, /api/list-attendance)
+        config.setExposedHeaders(List.of("X-Next-Cursor"));
         config.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -0,0 +1,47 @@
+package com.skcet.attendance.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+/**
+ * Sends read-only transactions to the replica pool and everything else (writes,
+ * non-transactional JDBC, Flyway) to the primary. Must sit behind a
+ * LazyConnectionDataSourceProxy: the read-only flag of a transaction is only known
+ * once it has begun, so the physical connection has to be chosen at first use.
+ *
+ * Spring Data query methods declared on a repository interface are not
+ * transactional, so a read only reaches the replica inside a
+ * {@code @Transactional(readOnly = true)} caller (see JpaAttendanceStore).
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route { PRIMARY, REPLICA }
+
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    // Runs work with every connection it opens on the primary, e.g. a read that must see a just-committed write
+    public static <T> T onPrimary(Supplier<T> work) {
+        if (PINNED.get() != null) {
+            return work.get();
+        }
+        PINNED.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            PINNED.remove();
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Route route = PINNED.get() == null && TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                ? Route.REPLICA
+                : Route.PRIMARY;
+        log.debug("Routing connection to {}", route);
+        return route;
+    }
+}
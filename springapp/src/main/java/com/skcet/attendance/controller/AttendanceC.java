@@ -1,28 +1,57 @@
 package com.skcet.attendance.controller;
 
-import com.skcet.attendance.Entity.Attendance;
+import com.skcet.attendance.Entity.ClassSession;
+import com.skcet.attendance.dto.ClassAttendancePage;
+import com.skcet.attendance.dto.ClassAttendanceRow;
+import com.skcet.attendance.dto.MarkAttendanceRequest;
+import com.skcet.attendance.dto.RollCallRequest;
+import com.skcet.attendance.service.AttendanceExportService;
 import com.skcet.attendance.service.AttendanceService;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/api/attendance")
 @CrossOrigin(origins = "http://localhost:5173")
+@Slf4j
 public class AttendanceC {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int MAX_ROLL_CALL = 500;
+    private static final int MAX_REPORT_CLASSES = 100;
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     @Autowired
     private AttendanceService attendanceService;
 
+    @Autowired
+    private AttendanceExportService attendanceExportService;
+
     
 
     @GetMapping("/student/{studentEmail}/summary")
-    public ResponseEntity<Map<String, Integer>> getStudentSummary(@PathVariable String studentEmail , @RequestParam String date) {
-        System.out.println("Fetching stats for student: " + studentEmail + " on date: " + date);
-        Map<String, Integer> stats = attendanceService.getStatsForStudent(studentEmail, date);
+    public ResponseEntity<Map<String, Integer>> getStudentSummary(@PathVariable String studentEmail,
+                                                                  @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate date,
+                                                                  @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate from,
+                                                                  @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate to) {
+        // Either a single ?date= or an inclusive ?from=&to= range
+        LocalDate start = date != null ? date : from;
+        LocalDate end = date != null ? date : to;
+        if (start == null || end == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        log.debug("Fetching stats for student: {} from {} to {}", studentEmail, start, end);
+        Map<String, Integer> stats = attendanceService.getStatsForStudent(studentEmail, start, end);
         return ResponseEntity.ok(stats);
     }
 
@@ -30,14 +59,18 @@ public class AttendanceC {
     // 2️⃣ Existing mark endpoint
     // ---------------------------
     @PostMapping("/mark")
-    public ResponseEntity<String> markAttendance(@RequestBody Attendance request) {
+    public ResponseEntity<String> markAttendance(@RequestBody MarkAttendanceRequest request) {
+        Short period = parsePeriod(request.getPeriod());
+        if (period == null) {
+            return ResponseEntity.badRequest().body("Invalid period: " + request.getPeriod());
+        }
         boolean success = attendanceService.markAttendance(
                 request.getStudentEmail(),
                 request.getStaffId(),
                 request.getStaffName(),
                 request.getClassName(),
                 request.getSessionDate(),
-                request.getPeriod(),
+                period,
                 request.isPresent()
         );
         if (success) {
@@ -47,6 +80,33 @@ public class AttendanceC {
         }
     }
 
+    // ---------------------------
+    // Roll call: one request per section (up to MAX_ROLL_CALL students)
+    // ---------------------------
+    @PostMapping("/roll-call")
+    public ResponseEntity<?> rollCall(@RequestBody RollCallRequest request) {
+        List<RollCallRequest.Entry> entries = request.getEntries();
+        if (request.getClassName() == null || request.getSessionDate() == null || request.getPeriod() == null
+                || entries == null || entries.isEmpty()) {
+            return ResponseEntity.badRequest().body("className, sessionDate, period and entries are required");
+        }
+        if (parsePeriod(request.getPeriod()) == null) {
+            return ResponseEntity.badRequest().body("Invalid period: " + request.getPeriod());
+        }
+        if (entries.size() > MAX_ROLL_CALL) {
+            return ResponseEntity.badRequest().body("At most " + MAX_ROLL_CALL + " students per roll call");
+        }
+        if (entries.stream().anyMatch(e -> e.getStudentEmail() == null || e.getStudentEmail().isBlank())) {
+            return ResponseEntity.badRequest().body("Every entry needs a studentEmail");
+        }
+        try {
+            return ResponseEntity.ok(attendanceService.rollCall(request));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body("Failed to save roll call");
+        }
+    }
+
     // ---------------------------
     // 3️⃣ New endpoint: mark via token
     // ---------------------------
@@ -55,23 +115,100 @@ public class AttendanceC {
             @RequestParam String token,
             @RequestParam String studentEmail) {
         try {
-            boolean success = attendanceService.markAttendanceFromToken(studentEmail, token);
-            if (success) {
-                return ResponseEntity.ok("Attendance marked successfully");
-            } else {
-                return ResponseEntity.badRequest().body("Failed to mark attendance");
+            switch (attendanceService.markAttendanceFromToken(studentEmail, token)) {
+                case MARKED:
+                    return ResponseEntity.ok("Attendance marked successfully");
+                case INVALID_TOKEN:
+                    return ResponseEntity.badRequest().body("Invalid or expired token");
+                case ALREADY_MARKED:
+                    return ResponseEntity.badRequest().body("Attendance already marked");
+                default:
+                    return ResponseEntity.badRequest().body("Failed to mark attendance");
             }
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Invalid token or attendance already marked");
         }
     }
+    // Current-term totals (or ?term=2024-25/ODD), optionally for one class; single-row counter reads
+    @GetMapping("/student/{studentEmail}/term-summary")
+    public ResponseEntity<Map<String, Object>> getStudentTermSummary(
+            @PathVariable String studentEmail,
+            @RequestParam(required = false) String className,
+            @RequestParam(required = false) String term) {
+        return ResponseEntity.ok(attendanceService.getTermSummary(studentEmail, className, term));
+    }
+
+    @GetMapping("/admin/class/day-summary")
+    public ResponseEntity<Map<String, Object>> getClassDaySummary(
+            @RequestParam String className,
+            @RequestParam @DateTimeFormat(iso = ISO.DATE) LocalDate date) {
+        return ResponseEntity.ok(attendanceService.getClassDaySummary(className, date));
+    }
+
+    // Hit/miss/invalidation/eviction counts of the summary and class listing cache
+    @GetMapping("/admin/cache/stats")
+    public ResponseEntity<Map<String, Long>> getCacheStats() {
+        return ResponseEntity.ok(attendanceService.getCacheStats());
+    }
+
+    // Recomputes the counter tables from raw attendance rows (after imports or manual fixes)
+    @PostMapping("/admin/counters/rebuild")
+    public ResponseEntity<Map<String, Long>> rebuildCounters() {
+        long rows = attendanceService.rebuildCounters();
+        return ResponseEntity.ok(Map.of("rowsRead", rows));
+    }
+
+    // Class session listing. Optional keyset paging: ?limit=N[&after=<id>] (at most 1000 per page); when a
+    // full page is returned, X-Next-Cursor holds the id to pass as 'after' for the next one.
     @GetMapping("/admin/class")
-public ResponseEntity<List<Attendance>> getClassAttendance(
-        @RequestParam String className,
-        @RequestParam String date,
-        @RequestParam String period) {
-    List<Attendance> list = attendanceService.getClassAttendance(className, date, period);
-    return ResponseEntity.ok(list);
-}
+    public ResponseEntity<List<ClassAttendanceRow>> getClassAttendance(
+            @RequestParam String className,
+            @RequestParam @DateTimeFormat(iso = ISO.DATE) LocalDate date,
+            @RequestParam String period,
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(required = false) Integer limit) {
+        Short sessionPeriod = parsePeriod(period);
+        if (sessionPeriod == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        ClassAttendancePage page = attendanceService.getClassAttendance(className, date, sessionPeriod, after, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(page.getNextCursor()));
+        }
+        return response.body(page.getRows());
+    }
+
+    // All periods of a class between two dates as NDJSON, streamed while it is read
+    @GetMapping("/admin/class/export")
+    public ResponseEntity<StreamingResponseBody> exportClassAttendance(
+            @RequestParam String className,
+            @RequestParam @DateTimeFormat(iso = ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = ISO.DATE) LocalDate to) {
+        StreamingResponseBody body = out -> attendanceExportService.writeClassExport(className, from, to, out);
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
 
+    // Per-student present/absent/percentage over a date range as NDJSON, sorted by class then student.
+    // Repeat className for several classes (e.g. a whole department) in one report.
+    @GetMapping("/admin/class/report")
+    public ResponseEntity<StreamingResponseBody> getClassReport(
+            @RequestParam List<String> className,
+            @RequestParam @DateTimeFormat(iso = ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = ISO.DATE) LocalDate to) {
+        if (className.isEmpty() || className.size() > MAX_REPORT_CLASSES || from.isAfter(to)) {
+            return ResponseEntity.badRequest().build();
+        }
+        StreamingResponseBody body = out -> attendanceExportService.writeClassReport(className, from, to, out);
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    // Same period parsing as QR tokens ("3", "P3", "Period 3"); null when there is no usable period
+    private static Short parsePeriod(String period) {
+        try {
+            return ClassSession.parsePeriod(period);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
 }
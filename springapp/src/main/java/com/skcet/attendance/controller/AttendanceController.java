@@ -1,19 +1,26 @@
 package com.skcet.attendance.controller;
 
 import com.skcet.attendance.dto.AttendanceRecord;
+import com.skcet.attendance.service.AttendanceProjection;
 import com.skcet.attendance.service.FirestoreService;
 import lombok.RequiredArgsConstructor;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api")
@@ -21,22 +28,48 @@ import java.util.Map;
 public class AttendanceController {
 
     private final FirestoreService firestoreService;
+    private final AttendanceProjection projection;
     private static final Logger log = LoggerFactory.getLogger(AttendanceController.class);
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     // === ADMIN ONLY ===
+    // Newest-first page of records; when there are more, X-Next-Cursor holds the value to pass as 'after'.
+    // Served from the in-memory projection once it is loaded.
     @GetMapping("/list-attendance")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<AttendanceRecord>> listAttendance() {
+    public ResponseEntity<List<AttendanceRecord>> listAttendance(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
         try {
-            List<AttendanceRecord> records = firestoreService.getAllAttendance();
-            log.info("Retrieved {} attendance records", records.size());
-            return ResponseEntity.ok(records);
+            int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+            FirestoreService.AttendancePage page = projection.isReady()
+                    ? projection.getPage(after, size)
+                    : firestoreService.getAttendancePage(after, size);
+            log.info("Retrieved {} attendance records", page.getRecords().size());
+            return pageResponse(page);
 
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             log.error("Failed to list attendance: {}", e.getMessage());
             return ResponseEntity.internalServerError().build();
         }
     }
 
+    // === ADMIN ONLY ===
+    // All records, newest first, as NDJSON written page by page while Firestore returns them
+    @GetMapping("/list-attendance/stream")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> streamAttendance(
+            @RequestParam(defaultValue = "" + MAX_PAGE_SIZE) int pageSize) {
+        int size = Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+        StreamingResponseBody body = out -> firestoreService.writeAttendanceNdjson(size, out);
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
     // === STUDENT + ADMIN ===
     @GetMapping("/student-attendance")
     @PreAuthorize("hasAnyRole('STUDENT','ADMIN')")
@@ -47,7 +80,9 @@ public class AttendanceController {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).body(List.of());
             }
 
-            List<AttendanceRecord> records = firestoreService.getStudentAttendance(email);
+            List<AttendanceRecord> records = projection.isReady()
+                    ? projection.getByEmail(email)
+                    : firestoreService.getStudentAttendance(email);
             log.info("Retrieved {} attendance records for student: {}", records.size(), email);
             return ResponseEntity.ok(records);
 
@@ -58,24 +93,56 @@ public class AttendanceController {
     }
 
     // === ADMIN ONLY ===
-    @GetMapping("/attendance-stats")
+    // Records of one scan session, newest first; projection only
+    @GetMapping("/session-attendance")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<AttendanceStats> getAttendanceStats() {
-        try {
-            List<AttendanceRecord> allRecords = firestoreService.getAllAttendance();
+    public ResponseEntity<List<AttendanceRecord>> getSessionAttendance(@RequestParam String sessionId) {
+        if (!projection.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(projection.getBySession(sessionId));
+    }
 
-            long totalRecords = allRecords.size();
-            long presentCount = allRecords.stream().filter(r -> "present".equals(r.getStatus())).count();
-            long lateCount = allRecords.stream().filter(r -> "late".equals(r.getStatus())).count();
-            long absentCount = allRecords.stream().filter(r -> "absent".equals(r.getStatus())).count();
+    // === ADMIN ONLY ===
+    // Records with one status, paged like /list-attendance (after, limit, X-Next-Cursor)
+    @GetMapping("/status-attendance")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<AttendanceRecord>> getStatusAttendance(
+            @RequestParam String status,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        try {
+            int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+            FirestoreService.AttendancePage page = projection.isReady()
+                    ? projection.getStatusPage(status, after, size)
+                    : firestoreService.getStatusPage(status, after, size);
+            return pageResponse(page);
 
-            double attendanceRate = totalRecords > 0 ? (double) presentCount / totalRecords * 100 : 0;
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Failed to list {} attendance: {}", status, e.getMessage());
+            return ResponseEntity.internalServerError().build();
+        }
+    }
 
-            AttendanceStats stats = new AttendanceStats(
-                totalRecords, presentCount, lateCount, absentCount, attendanceRate
-            );
+    // === ADMIN ONLY ===
+    // Size, lag and reconnects of the in-memory attendance projection
+    @GetMapping("/attendance-projection/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Long>> getProjectionStats() {
+        return ResponseEntity.ok(projection.getStats());
+    }
 
-            return ResponseEntity.ok(stats);
+    // === ADMIN ONLY ===
+    // Served from the sharded status counters: a few document reads regardless of history size
+    @GetMapping("/attendance-stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<AttendanceStats> getAttendanceStats(
+            @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate date) {
+        try {
+            Map<String, Long> counts = firestoreService.getStatusCounts(date);
+            return ResponseEntity.ok(AttendanceStats.of(counts.get("present"), counts.get("late"), counts.get("absent")));
 
         } catch (Exception e) {
             log.error("Failed to get attendance stats: {}", e.getMessage());
@@ -83,10 +150,36 @@ public class AttendanceController {
         }
     }
 
+    // === ADMIN ONLY ===
+    // Recomputes the status counters from the attendance records (after imports or manual edits)
+    @PostMapping("/attendance-stats/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Long>> rebuildAttendanceStats() {
+        try {
+            return ResponseEntity.ok(Map.of("recordsRead", firestoreService.rebuildStatusCounters()));
+        } catch (Exception e) {
+            log.error("Failed to rebuild attendance stats: {}", e.getMessage());
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    // === ADMIN ONLY ===
+    // One-off: converts record timestamps stored as LocalDateTime maps to Firestore Timestamps
+    @PostMapping("/list-attendance/backfill-timestamps")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Long>> backfillTimestamps() {
+        try {
+            return ResponseEntity.ok(Map.of("converted", firestoreService.backfillTimestamps()));
+        } catch (Exception e) {
+            log.error("Failed to backfill attendance timestamps: {}", e.getMessage());
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     // === STUDENT + ADMIN ===
     @PostMapping("/attendance")
     @PreAuthorize("hasAnyRole('STUDENT','ADMIN')")
-    public ResponseEntity<String> postAttendance(@RequestBody Map<String, Object> body) {
+    public CompletableFuture<ResponseEntity<String>> postAttendance(@RequestBody Map<String, Object> body) {
         try {
             String email = (String) body.get("email");
             String sessionId = (String) body.get("sessionId");
@@ -94,16 +187,23 @@ public class AttendanceController {
 
             if (!isAdmin() && !getCurrentUserEmail().equalsIgnoreCase(email)) {
                 log.warn("Unauthorized attendance post by {} for {}", getCurrentUserEmail(), email);
-                return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Not allowed to mark attendance for others");
+                return CompletableFuture.completedFuture(
+                        ResponseEntity.status(HttpStatus.FORBIDDEN).body("Not allowed to mark attendance for others"));
             }
 
-            firestoreService.saveAttendance(email, sessionId, confidence);
-
-            log.info("Attendance recorded for student: {}", email);
-            return ResponseEntity.ok("Attendance recorded successfully");
+            return firestoreService.saveAttendance(email, sessionId, confidence)
+                    .handle((saved, error) -> {
+                        if (error != null) {
+                            log.error("Failed to record attendance: {}", error.getMessage());
+                            return ResponseEntity.internalServerError().body("Error recording attendance");
+                        }
+                        log.info("Attendance recorded for student: {}", email);
+                        return ResponseEntity.ok("Attendance recorded successfully");
+                    });
         } catch (Exception e) {
             log.error("Failed to record attendance: {}", e.getMessage());
-            return ResponseEntity.internalServerError().body("Error recording attendance");
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.internalServerError().body("Error recording attendance"));
         }
     }
 
@@ -125,6 +225,24 @@ public class AttendanceController {
             this.attendanceRate = attendanceRate;
         }
 
+        public static AttendanceStats of(long presentCount, long lateCount, long absentCount) {
+            long totalRecords = presentCount + lateCount + absentCount;
+            double attendanceRate = totalRecords > 0 ? (double) presentCount / totalRecords * 100 : 0;
+            return new AttendanceStats(totalRecords, presentCount, lateCount, absentCount, attendanceRate);
+        }
+
+        // Counts records by status; also used by the benchmarks module
+        public static AttendanceStats of(List<AttendanceRecord> records) {
+            long totalRecords = records.size();
+            long presentCount = records.stream().filter(r -> "present".equals(r.getStatus())).count();
+            long lateCount = records.stream().filter(r -> "late".equals(r.getStatus())).count();
+            long absentCount = records.stream().filter(r -> "absent".equals(r.getStatus())).count();
+
+            double attendanceRate = totalRecords > 0 ? (double) presentCount / totalRecords * 100 : 0;
+
+            return new AttendanceStats(totalRecords, presentCount, lateCount, absentCount, attendanceRate);
+        }
+
         public long getTotalRecords() { return totalRecords; }
         public void setTotalRecords(long totalRecords) { this.totalRecords = totalRecords; }
         public long getPresentCount() { return presentCount; }
@@ -138,6 +256,14 @@ public class AttendanceController {
     }
 
     // === Helpers ===
+    private static ResponseEntity<List<AttendanceRecord>> pageResponse(FirestoreService.AttendancePage page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header("X-Next-Cursor", page.getNextCursor());
+        }
+        return response.body(page.getRecords());
+    }
+
     private String getCurrentUserEmail() {
         return SecurityContextHolder.getContext().getAuthentication().getName();
     }
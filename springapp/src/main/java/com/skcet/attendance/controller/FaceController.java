@@ -4,6 +4,10 @@ import com.skcet.attendance.dto.FaceVerifyRequest;
 import com.skcet.attendance.dto.FaceVerifyResponse;
 import com.skcet.attendance.service.AzureFaceService;
 import com.skcet.attendance.service.FirestoreService;
+import com.skcet.attendance.service.RedemptionIndex;
+import com.skcet.attendance.service.ScanSessionStore;
+import com.skcet.attendance.service.ScanTicketService;
+import com.skcet.attendance.service.TokenService;
 import lombok.RequiredArgsConstructor;
 
 import org.slf4j.Logger;
@@ -13,6 +17,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api")
@@ -21,57 +26,89 @@ public class FaceController {
 
     private final AzureFaceService azureFaceService;
     private final FirestoreService firestoreService;
+    private final ScanTicketService scanTicketService;
+    private final RedemptionIndex redemptionIndex;
     private static final Logger log = LoggerFactory.getLogger(FaceController.class);
-    // Store active sessions (should match QRController)
-    private final Map<String, String> activeSessions = new HashMap<>();
 
+    // Completes once the attendance record is committed; the request thread is freed meanwhile
     @PostMapping("/verify-face")
-    public ResponseEntity<FaceVerifyResponse> verifyFace(@RequestBody FaceVerifyRequest request) {
+    public CompletableFuture<ResponseEntity<FaceVerifyResponse>> verifyFace(@RequestBody FaceVerifyRequest request) {
         try {
             // Validate session
-            String sessionEmail = activeSessions.get(request.getSessionId());
-            if (sessionEmail == null) {
+            ScanSessionStore.ScanSession session = scanTicketService.resolve(request.getSessionId());
+            if (session == null) {
                 log.warn("Invalid session ID: {}", request.getSessionId());
-                return ResponseEntity.ok(new FaceVerifyResponse(false, "Invalid session", 0.0));
+                return CompletableFuture.completedFuture(
+                        ResponseEntity.ok(new FaceVerifyResponse(false, "Invalid session", 0.0)));
             }
             
-            if (!sessionEmail.equals(request.getEmail())) {
+            if (!session.getEmail().equals(request.getEmail())) {
                 log.warn("Email mismatch for session: {}", request.getSessionId());
-                return ResponseEntity.ok(new FaceVerifyResponse(false, "Email mismatch", 0.0));
+                return CompletableFuture.completedFuture(
+                        ResponseEntity.ok(new FaceVerifyResponse(false, "Email mismatch", 0.0)));
             }
             
             // Perform face verification
             double confidence = azureFaceService.detectAndVerifyFace(request.getImage(), request.getEmail());
             
             if (confidence >= 0.6) { // Threshold for successful verification
-                // Save attendance
-                firestoreService.saveAttendance(request.getEmail(), request.getSessionId(), confidence);
-                
-                // Clear session
-                activeSessions.remove(request.getSessionId());
-                
-                log.info("Face verification successful for: {} with confidence: {}", request.getEmail(), confidence);
-                
-                return ResponseEntity.ok(new FaceVerifyResponse(true, "Face verification successful", confidence));
+                // Fast local pre-check; the write below is what keeps a token single-use across instances
+                TokenService.AttendancePayload payload = session.getPayload();
+                if (payload != null
+                        && !redemptionIndex.tryRedeem(payload.getRandomId(), request.getEmail(), payload.getExpiresAt())) {
+                    scanTicketService.close(request.getSessionId());
+                    log.warn("QR already redeemed by: {}", request.getEmail());
+                    return CompletableFuture.completedFuture(
+                            ResponseEntity.ok(new FaceVerifyResponse(false, "Attendance already marked", confidence)));
+                }
+
+                // Save attendance under an id derived from the token and student, created only once;
+                // a failed write gives the QR back so the student can retry
+                return firestoreService.saveAttendance(request.getEmail(), request.getSessionId(), confidence,
+                                payload != null ? payload.getRandomId() : null)
+                        .handle((saved, error) -> {
+                            if (error != null) {
+                                if (payload != null) {
+                                    redemptionIndex.release(payload.getRandomId(), request.getEmail());
+                                }
+                                log.error("Face verification error: {}", error.getMessage());
+                                return ResponseEntity.internalServerError().<FaceVerifyResponse>build();
+                            }
+                            if (saved == null) {
+                                // Recorded already, e.g. through another instance
+                                scanTicketService.close(request.getSessionId());
+                                log.warn("QR already redeemed by: {}", request.getEmail());
+                                return ResponseEntity.ok(
+                                        new FaceVerifyResponse(false, "Attendance already marked", confidence));
+                            }
+
+                            // Clear session
+                            scanTicketService.close(request.getSessionId());
+
+                            log.info("Face verification successful for: {} with confidence: {}", request.getEmail(), confidence);
+
+                            return ResponseEntity.ok(new FaceVerifyResponse(true, "Face verification successful", confidence));
+                        });
             } else {
                 log.warn("Face verification failed for: {} with confidence: {}", request.getEmail(), confidence);
-                return ResponseEntity.ok(new FaceVerifyResponse(false, "Face verification failed", confidence));
+                return CompletableFuture.completedFuture(
+                        ResponseEntity.ok(new FaceVerifyResponse(false, "Face verification failed", confidence)));
             }
             
         } catch (Exception e) {
             log.error("Face verification error: {}", e.getMessage());
-            return ResponseEntity.internalServerError().build();
+            return CompletableFuture.completedFuture(ResponseEntity.internalServerError().build());
         }
     }
 
     @GetMapping("/face-status/{sessionId}")
     public ResponseEntity<Map<String, Object>> getFaceStatus(@PathVariable String sessionId) {
-        String email = activeSessions.get(sessionId);
+        ScanSessionStore.ScanSession session = scanTicketService.resolve(sessionId);
         Map<String, Object> response = new HashMap<>();
         
-        if (email != null) {
+        if (session != null) {
             response.put("valid", true);
-            response.put("email", email);
+            response.put("email", session.getEmail());
         } else {
             response.put("valid", false);
         }
@@ -4,15 +4,26 @@ import com.skcet.attendance.dto.AttendanceInfo;
 import com.skcet.attendance.dto.QRGenerateResponse;
 import com.skcet.attendance.dto.QRValidateRequest;
 import com.skcet.attendance.dto.QRValidateResponse;
+import com.skcet.attendance.service.QRBatchService;
+import com.skcet.attendance.service.RedemptionIndex;
+import com.skcet.attendance.service.RotatingQrService;
+import com.skcet.attendance.service.ScanSessionStore;
+import com.skcet.attendance.service.ScanTicketService;
+import com.skcet.attendance.service.TokenKeyring;
 import com.skcet.attendance.service.TokenService;
 import lombok.RequiredArgsConstructor;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -22,28 +33,20 @@ import java.util.Map;
 public class QRController {
 
     private final TokenService tokenService;
+    private final RotatingQrService rotatingQrService;
+    private final QRBatchService qrBatchService;
+    private final ScanSessionStore sessionStore;
+    private final ScanTicketService scanTicketService;
+    private final RedemptionIndex redemptionIndex;
+    private final TokenKeyring tokenKeyring;
 
-    // Store active sessions (consider Redis for production)
-    private final Map<String, String> activeSessions = new HashMap<>();
     private static final Logger log = LoggerFactory.getLogger(QRController.class);
 
     // --- Generate QR dynamically based on staff input ---
     @PostMapping("/generate") // ✅ matches frontend qrAPI.generateQR()
     public ResponseEntity<QRGenerateResponse> generateQR(@RequestBody AttendanceInfo info) {
         try {
-            String token = tokenService.generateToken(
-                    String.valueOf(info.getStaffId()),
-                    info.getStaffName(),
-                    info.getSessionDate(),
-                    info.getPeriod(),
-                    info.getStartTime(),
-                    info.getEndTime(),
-                    String.valueOf(info.getCourseId()),
-                    info.getCourseName(),
-                    info.getLocation(),
-                    info.getAttendanceType(),
-                    info.getClassName()
-            );
+            String token = tokenService.generateToken(info);
 
             long expiresAt = System.currentTimeMillis() + tokenService.getQrTtlMs();
 
@@ -54,15 +57,44 @@ public class QRController {
         }
     }
 
+    // --- Bulk pre-generation for a day's timetable (streamed JSON array) ---
+    @PostMapping("/generate/batch")
+    public ResponseEntity<StreamingResponseBody> generateBatch(@RequestBody(required = false) List<AttendanceInfo> timetable) {
+        // Checked before streaming starts; afterwards the status is already 200
+        if (timetable == null || timetable.contains(null)) {
+            return ResponseEntity.badRequest().build();
+        }
+        StreamingResponseBody body = out -> qrBatchService.writeBatch(timetable, out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    // --- Rotating QR: fresh token every window, pushed over SSE (GET so EventSource can open it) ---
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamQR(@ModelAttribute AttendanceInfo info,
+                                               @RequestParam(required = false) Integer windowSeconds) {
+        try {
+            return ResponseEntity.ok(rotatingQrService.openStream(info, windowSeconds));
+        } catch (IllegalStateException e) {
+            log.warn("Rotating QR stream refused: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
     // --- Validate QR scanned by student ---
     @PostMapping("/scan") // ✅ matches frontend qrAPI.scanQR()
     public ResponseEntity<QRValidateResponse> validateQR(@RequestBody QRValidateRequest request) {
         try {
             TokenService.AttendancePayload payload = tokenService.validateToken(request.getToken());
 
+            // Local pre-check only: the attendance write itself rejects a redemption made on another instance
+            if (payload != null && redemptionIndex.isRedeemed(payload.getRandomId(), request.getEmail())) {
+                log.warn("QR already redeemed by: {}", request.getEmail());
+                return ResponseEntity.ok(new QRValidateResponse(false, null));
+            }
+
             if (payload != null) {
-                String sessionId = tokenService.generateSessionId();
-                activeSessions.put(sessionId, request.getEmail());
+                // Signed ticket by default, so the face step can land on any instance
+                String sessionId = scanTicketService.open(request.getEmail(), payload);
 
                 log.info("QR validation successful for: {} | Staff: {} | Class: {}",
                          request.getEmail(), payload.getStaffName(), payload.getCourseName());
@@ -82,10 +114,10 @@ public class QRController {
     // --- Session endpoints ---
     @GetMapping("/session/{sessionId}")
     public ResponseEntity<Map<String, String>> getSession(@PathVariable String sessionId) {
-        String email = activeSessions.get(sessionId);
-        if (email != null) {
+        ScanSessionStore.ScanSession session = scanTicketService.resolve(sessionId);
+        if (session != null) {
             Map<String, String> response = new HashMap<>();
-            response.put("email", email);
+            response.put("email", session.getEmail());
             response.put("valid", "true");
             return ResponseEntity.ok(response);
         } else {
@@ -95,11 +127,36 @@ public class QRController {
 
     @DeleteMapping("/session/{sessionId}")
     public ResponseEntity<Void> clearSession(@PathVariable String sessionId) {
-        activeSessions.remove(sessionId);
+        scanTicketService.close(sessionId);
         return ResponseEntity.ok().build();
     }
 
-    // --- Optional: mark attendance directly ---
+    @GetMapping("/sessions/stats")
+    public ResponseEntity<Map<String, Long>> getSessionStats() {
+        Map<String, Long> response = new HashMap<>();
+        response.put("size", (long) sessionStore.size());
+        response.put("expirations", sessionStore.getExpirationCount());
+        response.put("evictions", sessionStore.getEvictionCount());
+        return ResponseEntity.ok(response);
+    }
+
+    // --- Re-read qr.keys.file now instead of waiting for the next refresh ---
+    @PostMapping("/keys/reload")
+    public ResponseEntity<Map<String, Object>> reloadKeys() {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            tokenKeyring.reloadFromFile(true);
+            response.put("activeKeyId", tokenKeyring.getActiveKeyId());
+            return ResponseEntity.ok(response);
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            log.error("QR key reload failed: {}", e.getMessage());
+            response.put("error", e.getMessage());
+            response.put("activeKeyId", tokenKeyring.getActiveKeyId());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+        // --- Optional: mark attendance directly ---
     @PostMapping("/mark-attendance")
     public ResponseEntity<?> markAttendance(@RequestBody Map<String, String> body) {
         String token = body.get("token");
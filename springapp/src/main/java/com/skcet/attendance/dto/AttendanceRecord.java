@@ -1,7 +1,16 @@
 package com.skcet.attendance.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.annotation.Exclude;
+import com.google.cloud.firestore.annotation.PropertyName;
+
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 
+// Firestore maps the getters: 'timestamp' is stored as a native Timestamp (server zone -> instant),
+// so it orders correctly and reads back with toObject; the JSON API keeps the LocalDateTime
 public class AttendanceRecord {
     private String id;
     private String email;
@@ -11,8 +20,19 @@ public class AttendanceRecord {
     private LocalDateTime timestamp;
     private String sessionId;
     private double confidence;
+    // Firestore's toObject needs a no-arg constructor
+    public AttendanceRecord() {
+    }
     public AttendanceRecord(String attendanceId, String email2, String currentUserEmail, String string, String status2,
             LocalDateTime now, String sessionId2, double confidence2) {
+        this.id = attendanceId;
+        this.email = email2;
+        this.studentName = currentUserEmail;
+        this.className = string;
+        this.status = status2;
+        this.timestamp = now;
+        this.sessionId = sessionId2;
+        this.confidence = confidence2;
     }
     public String getId() {
         return id;
@@ -44,12 +64,30 @@ public class AttendanceRecord {
     public void setStatus(String status) {
         this.status = status;
     }
+    @Exclude
     public LocalDateTime getTimestamp() {
         return timestamp;
     }
+    @Exclude
     public void setTimestamp(LocalDateTime timestamp) {
         this.timestamp = timestamp;
     }
+    @JsonIgnore
+    @PropertyName("timestamp")
+    public Timestamp getFirestoreTimestamp() {
+        return timestamp != null ? toTimestamp(timestamp) : null;
+    }
+    @JsonIgnore
+    @PropertyName("timestamp")
+    public void setFirestoreTimestamp(Timestamp timestamp) {
+        this.timestamp = timestamp != null
+                ? LocalDateTime.ofInstant(Instant.ofEpochSecond(timestamp.getSeconds(), timestamp.getNanos()), ZoneId.systemDefault())
+                : null;
+    }
+    public static Timestamp toTimestamp(LocalDateTime time) {
+        Instant instant = time.atZone(ZoneId.systemDefault()).toInstant();
+        return Timestamp.ofTimeSecondsAndNanos(instant.getEpochSecond(), instant.getNano());
+    }
     public String getSessionId() {
         return sessionId;
     }
@@ -0,0 +1,30 @@
+package com.skcet.attendance.dto;
+
+import java.util.List;
+
+// One page of a class session listing; nextCursor is the 'after' id for the next page, null on the last one
+public class ClassAttendancePage {
+    private List<ClassAttendanceRow> rows;
+    private Long nextCursor;
+
+    public ClassAttendancePage(List<ClassAttendanceRow> rows, Long nextCursor) {
+        this.rows = rows;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<ClassAttendanceRow> getRows() {
+        return rows;
+    }
+
+    public void setRows(List<ClassAttendanceRow> rows) {
+        this.rows = rows;
+    }
+
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(Long nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,81 @@
+package com.skcet.attendance.dto;
+
+import java.time.LocalDate;
+
+// Read-only row for class listings and exports; filled directly by a JPQL constructor expression
+public class ClassAttendanceRow {
+    private Long id;
+    private String studentEmail;
+    private String staffId;
+    private String staffName;
+    private LocalDate sessionDate;
+    private Short period;
+    private boolean present;
+
+    public ClassAttendanceRow(Long id, String studentEmail, String staffId, String staffName,
+                              LocalDate sessionDate, Short period, boolean present) {
+        this.id = id;
+        this.studentEmail = studentEmail;
+        this.staffId = staffId;
+        this.staffName = staffName;
+        this.sessionDate = sessionDate;
+        this.period = period;
+        this.present = present;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getStudentEmail() {
+        return studentEmail;
+    }
+
+    public void setStudentEmail(String studentEmail) {
+        this.studentEmail = studentEmail;
+    }
+
+    public String getStaffId() {
+        return staffId;
+    }
+
+    public void setStaffId(String staffId) {
+        this.staffId = staffId;
+    }
+
+    public String getStaffName() {
+        return staffName;
+    }
+
+    public void setStaffName(String staffName) {
+        this.staffName = staffName;
+    }
+
+    public LocalDate getSessionDate() {
+        return sessionDate;
+    }
+
+    public void setSessionDate(LocalDate sessionDate) {
+        this.sessionDate = sessionDate;
+    }
+
+    public Short getPeriod() {
+        return period;
+    }
+
+    public void setPeriod(Short period) {
+        this.period = period;
+    }
+
+    public boolean isPresent() {
+        return present;
+    }
+
+    public void setPresent(boolean present) {
+        this.present = present;
+    }
+}
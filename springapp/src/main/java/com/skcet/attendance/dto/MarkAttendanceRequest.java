@@ -0,0 +1,70 @@
+package com.skcet.attendance.dto;
+
+import java.time.LocalDate;
+
+// Body of /api/attendance/mark: one student's mark with the session it belongs to
+public class MarkAttendanceRequest {
+    private String studentEmail;
+    private String staffId;
+    private String staffName;
+    private String className;
+    private LocalDate sessionDate;  // yyyy-MM-dd
+    private String period;  // "3", "P3" or "Period 3"
+    private boolean present;
+
+    public String getStudentEmail() {
+        return studentEmail;
+    }
+
+    public void setStudentEmail(String studentEmail) {
+        this.studentEmail = studentEmail;
+    }
+
+    public String getStaffId() {
+        return staffId;
+    }
+
+    public void setStaffId(String staffId) {
+        this.staffId = staffId;
+    }
+
+    public String getStaffName() {
+        return staffName;
+    }
+
+    public void setStaffName(String staffName) {
+        this.staffName = staffName;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    public void setClassName(String className) {
+        this.className = className;
+    }
+
+    public LocalDate getSessionDate() {
+        return sessionDate;
+    }
+
+    public void setSessionDate(LocalDate sessionDate) {
+        this.sessionDate = sessionDate;
+    }
+
+    public String getPeriod() {
+        return period;
+    }
+
+    public void setPeriod(String period) {
+        this.period = period;
+    }
+
+    public boolean isPresent() {
+        return present;
+    }
+
+    public void setPresent(boolean present) {
+        this.present = present;
+    }
+}
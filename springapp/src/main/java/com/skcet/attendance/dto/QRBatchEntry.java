@@ -0,0 +1,57 @@
+package com.skcet.attendance.dto;
+
+public class QRBatchEntry {
+    private String className;
+    private String sessionDate;
+    private String period;
+    private String token;
+    private long validFrom;
+    private long expiresAt;
+    public QRBatchEntry(String className, String sessionDate, String period, String token,
+                        long validFrom, long expiresAt) {
+        this.className = className;
+        this.sessionDate = sessionDate;
+        this.period = period;
+        this.token = token;
+        this.validFrom = validFrom;
+        this.expiresAt = expiresAt;
+    }
+    public String getClassName() {
+        return className;
+    }
+    public void setClassName(String className) {
+        this.className = className;
+    }
+    public String getSessionDate() {
+        return sessionDate;
+    }
+    public void setSessionDate(String sessionDate) {
+        this.sessionDate = sessionDate;
+    }
+    public String getPeriod() {
+        return period;
+    }
+    public void setPeriod(String period) {
+        this.period = period;
+    }
+    public String getToken() {
+        return token;
+    }
+    public void setToken(String token) {
+        this.token = token;
+    }
+    public long getValidFrom() {
+        return validFrom;
+    }
+    public void setValidFrom(long validFrom) {
+        this.validFrom = validFrom;
+    }
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+    public void setExpiresAt(long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    
+}
@@ -0,0 +1,86 @@
+package com.skcet.attendance.dto;
+
+import java.util.List;
+
+// Per-student outcome of a roll call, in request order
+public class RollCallResponse {
+    private int inserted;
+    private int updated;
+    private int unchanged;
+    private List<StudentResult> results;
+
+    public RollCallResponse(int inserted, int updated, int unchanged, List<StudentResult> results) {
+        this.inserted = inserted;
+        this.updated = updated;
+        this.unchanged = unchanged;
+        this.results = results;
+    }
+
+    public int getInserted() {
+        return inserted;
+    }
+
+    public void setInserted(int inserted) {
+        this.inserted = inserted;
+    }
+
+    public int getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(int updated) {
+        this.updated = updated;
+    }
+
+    public int getUnchanged() {
+        return unchanged;
+    }
+
+    public void setUnchanged(int unchanged) {
+        this.unchanged = unchanged;
+    }
+
+    public List<StudentResult> getResults() {
+        return results;
+    }
+
+    public void setResults(List<StudentResult> results) {
+        this.results = results;
+    }
+
+    public static class StudentResult {
+        private String studentEmail;
+        private boolean present;
+        private String result;  // INSERTED, UPDATED or UNCHANGED
+
+        public StudentResult(String studentEmail, boolean present, String result) {
+            this.studentEmail = studentEmail;
+            this.present = present;
+            this.result = result;
+        }
+
+        public String getStudentEmail() {
+            return studentEmail;
+        }
+
+        public void setStudentEmail(String studentEmail) {
+            this.studentEmail = studentEmail;
+        }
+
+        public boolean isPresent() {
+            return present;
+        }
+
+        public void setPresent(boolean present) {
+            this.present = present;
+        }
+
+        public String getResult() {
+            return result;
+        }
+
+        public void setResult(String result) {
+            this.result = result;
+        }
+    }
+}
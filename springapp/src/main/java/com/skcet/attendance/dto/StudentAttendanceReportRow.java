@@ -0,0 +1,46 @@
+package com.skcet.attendance.dto;
+
+// One student's totals in one class over a date range; filled by the grouped report query.
+// total is the number of sessions the class held in the range, not the student's rows: QR
+// attendance writes only present rows, so every session without one counts as absent.
+public class StudentAttendanceReportRow {
+    private String className;
+    private String studentEmail;
+    private long present;
+    private long absent;
+    private long total;
+    private double percentage;
+
+    public StudentAttendanceReportRow(String className, String studentEmail, Long present, Long sessions) {
+        this.className = className;
+        this.studentEmail = studentEmail;
+        this.present = present;
+        this.total = sessions;
+        this.absent = sessions - present;
+        this.percentage = total > 0 ? Math.round(present * 10000.0 / total) / 100.0 : 0;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    public String getStudentEmail() {
+        return studentEmail;
+    }
+
+    public long getPresent() {
+        return present;
+    }
+
+    public long getAbsent() {
+        return absent;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public double getPercentage() {
+        return percentage;
+    }
+}
@@ -0,0 +1,118 @@
+package com.skcet.attendance.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.skcet.attendance.dto.ClassAttendanceRow;
+import com.skcet.attendance.dto.StudentAttendanceReportRow;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Streams class attendance exports and reports as newline-delimited JSON.
+ *
+ * With the MySQL store, rows go from the database cursor straight to the response:
+ * nothing is collected in memory and DTO projections keep the persistence context
+ * empty, so memory use is the same for one period or a whole semester. The other
+ * stores hand over rows they have already read.
+ *
+ * The MySQL cursor lives only as long as a transaction, so with the jpa store each
+ * export runs in a read-only one (which also sends it to the replica). The firestore
+ * and memory stores run without a database and without a transaction manager.
+ */
+@Service
+@Slf4j
+public class AttendanceExportService {
+
+    private static final int FLUSH_EVERY = 500;
+
+    private final AttendanceStore store;
+    private final ObjectMapper objectMapper;
+    private final TransactionOperations readOnly;
+
+    public AttendanceExportService(AttendanceStore store, ObjectMapper objectMapper,
+                                   ObjectProvider<PlatformTransactionManager> transactionManager) {
+        this.store = store;
+        this.objectMapper = objectMapper;
+        PlatformTransactionManager manager = transactionManager.getIfAvailable();
+        if (manager != null) {
+            TransactionTemplate template = new TransactionTemplate(manager);
+            template.setReadOnly(true);
+            this.readOnly = template;
+        } else {
+            this.readOnly = TransactionOperations.withoutTransaction();
+        }
+    }
+
+    // One ClassAttendanceRow per line, ordered by date, period and id
+    public void writeClassExport(String className, LocalDate from, LocalDate to, OutputStream out) throws IOException {
+        long count = inReadOnly(() -> {
+            try (Stream<ClassAttendanceRow> rows = store.streamClassRange(className, from, to)) {
+                return writeLines(ClassAttendanceRow.class, rows, out);
+            }
+        });
+        log.info("Exported {} attendance rows for class {} ({} to {})", count, className, from, to);
+    }
+
+    // One StudentAttendanceReportRow per student and class, ordered by class then student
+    public void writeClassReport(List<String> classNames, LocalDate from, LocalDate to, OutputStream out)
+            throws IOException {
+        long count = inReadOnly(() -> {
+            try (Stream<StudentAttendanceReportRow> rows = store.streamClassReport(classNames, from, to)) {
+                return writeLines(StudentAttendanceReportRow.class, rows, out);
+            }
+        });
+        log.info("Reported {} students for classes {} ({} to {})", count, classNames, from, to);
+    }
+
+    private long inReadOnly(Export export) throws IOException {
+        try {
+            return readOnly.execute(status -> {
+                try {
+                    return export.write();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Export {
+        long write() throws IOException;
+    }
+
+    private <T> long writeLines(Class<T> type, Stream<T> rows, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(type)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        long count = 0;
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            json.setRootValueSeparator(null);
+            Iterator<T> it = rows.iterator();
+            while (it.hasNext()) {
+                writer.writeValue(json, it.next());
+                json.writeRaw('\n');
+                if (++count % FLUSH_EVERY == 0) {
+                    json.flush();
+                }
+            }
+        }
+        return count;
+    }
+}
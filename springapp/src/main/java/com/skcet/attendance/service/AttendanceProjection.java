@@ -0,0 +1,315 @@
+package com.skcet.attendance.service;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentChange;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreException;
+import com.google.cloud.firestore.ListenerRegistration;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+import com.skcet.attendance.dto.AttendanceRecord;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory read model of the Firestore {@code attendance} collection, kept current
+ * by a snapshot listener: the initial snapshot is loaded at startup and every later
+ * snapshot applies only its document changes.
+ *
+ * Records are indexed newest first overall and per student, session and status,
+ * so listings are answered without a Firestore query. The order is Firestore's for
+ * the fallback queries, (timestamp desc, document id desc), and like those queries
+ * the model leaves out records without a timestamp. Until the initial
+ * snapshot has arrived, or while the listener is down, {@link #isReady()} is false
+ * and callers should query Firestore instead. If the listener fails it is
+ * re-attached after {@code firestore.projection.retry-ms} and the model is reloaded.
+ */
+@Component
+@Slf4j
+public class AttendanceProjection {
+
+    // FirestoreService's listing order: timestamp descending, then document id descending
+    static final Comparator<AttendanceRecord> NEWEST_FIRST =
+            Comparator.comparing(AttendanceRecord::getTimestamp, Comparator.reverseOrder())
+                    .thenComparing(AttendanceRecord::getId, Comparator.reverseOrder());
+
+    private final Firestore firestore;
+    private final boolean enabled;
+    private final long startupTimeoutMs;
+    private final long retryMs;
+
+    // Indexes are only changed by the listener thread, under the write lock
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, AttendanceRecord> byId = new HashMap<>();
+    private final NavigableSet<AttendanceRecord> newestFirst = new TreeSet<>(NEWEST_FIRST);
+    private final Map<String, NavigableSet<AttendanceRecord>> byEmail = new HashMap<>();
+    private final Map<String, NavigableSet<AttendanceRecord>> bySession = new HashMap<>();
+    private final Map<String, NavigableSet<AttendanceRecord>> byStatus = new HashMap<>();
+
+    private final LongAdder changesApplied = new LongAdder();
+    private final LongAdder unreadable = new LongAdder();
+    private final LongAdder reconnects = new LongAdder();
+
+    private final CountDownLatch initialLoad = new CountDownLatch(1);
+    private final ScheduledExecutorService retrier;
+    private volatile ListenerRegistration registration;
+    private volatile boolean ready;
+    private volatile boolean reloading;
+    private volatile long lastEventLagMs = -1;
+    private volatile long lastEventAt;
+
+    public AttendanceProjection(Firestore firestore,
+                                @Value("${firestore.projection.enabled:true}") boolean enabled,
+                                @Value("${firestore.projection.startup-timeout-ms:30000}") long startupTimeoutMs,
+                                @Value("${firestore.projection.retry-ms:5000}") long retryMs) {
+        this.firestore = firestore;
+        this.enabled = enabled;
+        this.startupTimeoutMs = startupTimeoutMs;
+        this.retryMs = retryMs;
+        this.retrier = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "attendance-projection-retry");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // Waits up to the startup timeout for the initial snapshot; the app starts either way
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("Attendance projection disabled; listings query Firestore");
+            return;
+        }
+        listen();
+        try {
+            if (!initialLoad.await(startupTimeoutMs, TimeUnit.MILLISECONDS)) {
+                log.warn("Attendance projection not loaded after {} ms; querying Firestore until it is", startupTimeoutMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        retrier.shutdownNow();
+        ListenerRegistration current = registration;
+        if (current != null) {
+            current.remove();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Newest-first page of at most limit records after the record with id 'after' (null = first page)
+    public FirestoreService.AttendancePage getPage(String after, int limit) {
+        lock.readLock().lock();
+        try {
+            return page(newestFirst, after, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Same contract as getPage, over the records with one status
+    public FirestoreService.AttendancePage getStatusPage(String status, String after, int limit) {
+        lock.readLock().lock();
+        try {
+            NavigableSet<AttendanceRecord> records = byStatus.get(status);
+            return page(records != null ? records : new TreeSet<>(NEWEST_FIRST), after, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // A student's records, newest first
+    public List<AttendanceRecord> getByEmail(String email) {
+        return copy(byEmail, email);
+    }
+
+    public List<AttendanceRecord> getBySession(String sessionId) {
+        return copy(bySession, sessionId);
+    }
+
+
+    /**
+     * Size and freshness of the model. {@code lastEventLagMs} is how long after its
+     * Firestore read time the latest snapshot was applied; {@code msSinceLastEvent}
+     * grows while nothing changes, as Firestore sends no snapshot without changes.
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            stats.put("records", (long) byId.size());
+            stats.put("students", (long) byEmail.size());
+            stats.put("sessions", (long) bySession.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+        stats.put("ready", ready ? 1L : 0L);
+        stats.put("lastEventLagMs", lastEventLagMs);
+        stats.put("msSinceLastEvent", lastEventAt == 0 ? -1 : System.currentTimeMillis() - lastEventAt);
+        stats.put("changesApplied", changesApplied.sum());
+        stats.put("unreadableDocuments", unreadable.sum());
+        stats.put("reconnects", reconnects.sum());
+        return stats;
+    }
+
+    // Caller holds the read lock. The cursor can be any known record: pages resume at its position in the order.
+    private FirestoreService.AttendancePage page(NavigableSet<AttendanceRecord> ordered, String after, int limit) {
+        Iterator<AttendanceRecord> it;
+        if (after == null) {
+            it = ordered.iterator();
+        } else {
+            AttendanceRecord cursor = byId.get(after);
+            if (cursor == null) {
+                throw new IllegalArgumentException("Unknown cursor: " + after);
+            }
+            it = ordered.tailSet(cursor, false).iterator();
+        }
+        List<AttendanceRecord> records = new ArrayList<>(Math.min(limit, ordered.size()));
+        while (records.size() < limit && it.hasNext()) {
+            records.add(it.next());
+        }
+        String nextCursor = records.size() == limit ? records.get(records.size() - 1).getId() : null;
+        return new FirestoreService.AttendancePage(records, nextCursor);
+    }
+
+    private List<AttendanceRecord> copy(Map<String, ? extends Set<AttendanceRecord>> index, String key) {
+        lock.readLock().lock();
+        try {
+            Set<AttendanceRecord> records = index.get(key);
+            return records == null ? List.of() : new ArrayList<>(records);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void listen() {
+        reloading = true;
+        registration = firestore.collection("attendance").addSnapshotListener(this::onSnapshot);
+    }
+
+    private void onSnapshot(QuerySnapshot snapshot, FirestoreException error) {
+        if (error != null) {
+            ready = false;
+            log.error("Attendance projection listener failed, retrying in {} ms: {}", retryMs, error.getMessage());
+            registration.remove();
+            reconnects.increment();
+            retrier.schedule(this::listen, retryMs, TimeUnit.MILLISECONDS);
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            // The first snapshot of a (re-)attached listener lists every document as ADDED
+            if (reloading) {
+                clear();
+            }
+            for (DocumentChange change : snapshot.getDocumentChanges()) {
+                QueryDocumentSnapshot document = change.getDocument();
+                remove(document.getId());
+                if (change.getType() != DocumentChange.Type.REMOVED) {
+                    add(document);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        changesApplied.add(snapshot.getDocumentChanges().size());
+
+        long now = System.currentTimeMillis();
+        Timestamp readTime = snapshot.getReadTime();
+        lastEventLagMs = readTime != null ? Math.max(0, now - readTime.toDate().getTime()) : -1;
+        lastEventAt = now;
+        if (reloading) {
+            reloading = false;
+            ready = true;
+            initialLoad.countDown();
+            log.info("Attendance projection loaded {} records", snapshot.size());
+        }
+    }
+
+    private void add(QueryDocumentSnapshot document) {
+        AttendanceRecord record;
+        try {
+            record = document.toObject(AttendanceRecord.class);
+        } catch (RuntimeException e) {
+            unreadable.increment();
+            log.warn("Skipping unreadable attendance document {}: {}", document.getId(), e.getMessage());
+            return;
+        }
+        record.setId(document.getId());
+        if (record.getTimestamp() == null) {
+            // Not in Firestore's timestamp-ordered listings either
+            unreadable.increment();
+            log.warn("Skipping attendance document {} without a timestamp", document.getId());
+            return;
+        }
+        byId.put(record.getId(), record);
+        newestFirst.add(record);
+        if (record.getEmail() != null) {
+            byEmail.computeIfAbsent(record.getEmail(), k -> new TreeSet<>(NEWEST_FIRST)).add(record);
+        }
+        if (record.getSessionId() != null) {
+            bySession.computeIfAbsent(record.getSessionId(), k -> new TreeSet<>(NEWEST_FIRST)).add(record);
+        }
+        if (record.getStatus() != null) {
+            byStatus.computeIfAbsent(record.getStatus(), k -> new TreeSet<>(NEWEST_FIRST)).add(record);
+        }
+    }
+
+    private void remove(String id) {
+        AttendanceRecord record = byId.remove(id);
+        if (record == null) {
+            return;
+        }
+        newestFirst.remove(record);
+        removeFrom(byEmail, record.getEmail(), record);
+        removeFrom(bySession, record.getSessionId(), record);
+        removeFrom(byStatus, record.getStatus(), record);
+    }
+
+    private static void removeFrom(Map<String, ? extends Set<AttendanceRecord>> index, String key,
+                                   AttendanceRecord record) {
+        if (key == null) {
+            return;
+        }
+        Set<AttendanceRecord> records = index.get(key);
+        if (records != null && records.remove(record) && records.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private void clear() {
+        byId.clear();
+        newestFirst.clear();
+        byEmail.clear();
+        bySession.clear();
+        byStatus.clear();
+    }
+}
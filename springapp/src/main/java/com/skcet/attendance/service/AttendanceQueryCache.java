@@ -0,0 +1,145 @@
+package com.skcet.attendance.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.skcet.attendance.Entity.ClassSession;
+import com.skcet.attendance.config.ReplicaRoutingDataSource;
+import com.skcet.attendance.dto.ClassAttendanceRow;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache for the polled dashboard reads: student summaries and class
+ * session listings. Entries are bounded by {@code attendance.cache.max-entries} per
+ * cache and live at most {@code attendance.cache.ttl-seconds}.
+ *
+ * Invalidation is by write stamp. After a mark commits, {@link #recordWrite} stamps
+ * the student and the class session it touched with the next value of a logical
+ * clock; every entry remembers the clock value from before its query ran. An entry
+ * older than the last write to its student or session is treated as a miss and
+ * reloaded, so a read that raced with a write can never be served afterwards.
+ *
+ * Write stamps are local to this instance and are not broadcast. Behind a load
+ * balancer, another instance keeps serving its entry until it expires, so a read
+ * there can lag a mark by up to {@code attendance.cache.ttl-seconds} (plus replica
+ * lag, as that instance's reload is not pinned to the primary). Only the instance
+ * that took the write reads its own writes.
+ *
+ * With a read replica, a reload within {@code attendance.datasource.replica.pin-after-write-ms}
+ * of the last write to its student or session runs on the primary, so replication lag
+ * cannot hand back the state from before that write.
+ */
+@Component
+public class AttendanceQueryCache {
+
+    private final AtomicLong clock = new AtomicLong();
+    // Last write per ["student", email] and ["class", className, date, period]
+    private final Cache<List<Object>, Write> lastWrites;
+    private final Cache<List<Object>, Stamped<Map<String, Integer>>> studentStats;
+    private final Cache<List<Object>, Stamped<List<ClassAttendanceRow>>> classPages;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final long pinAfterWriteMs;
+
+    public AttendanceQueryCache(@Value("${attendance.cache.ttl-seconds:30}") long ttlSeconds,
+                                @Value("${attendance.cache.max-entries:10000}") long maxEntries,
+                                @Value("${attendance.datasource.replica.pin-after-write-ms:2000}") long pinAfterWriteMs) {
+        Duration ttl = Duration.ofSeconds(ttlSeconds);
+        this.pinAfterWriteMs = pinAfterWriteMs;
+        // A write only matters while an entry loaded before it can be alive or its pin window is open
+        Duration keep = ttl.multipliedBy(2);
+        if (keep.toMillis() < pinAfterWriteMs) {
+            keep = Duration.ofMillis(pinAfterWriteMs);
+        }
+        this.lastWrites = Caffeine.newBuilder().expireAfterWrite(keep).build();
+        this.studentStats = Caffeine.newBuilder().maximumSize(maxEntries).expireAfterWrite(ttl).recordStats().build();
+        this.classPages = Caffeine.newBuilder().maximumSize(maxEntries).expireAfterWrite(ttl).recordStats().build();
+    }
+
+    public Map<String, Integer> studentStats(String studentEmail, LocalDate from, LocalDate to,
+                                             Supplier<Map<String, Integer>> loader) {
+        return get(studentStats, List.of(studentEmail, from, to), studentWriteKey(studentEmail), loader);
+    }
+
+    public List<ClassAttendanceRow> classPage(String className, LocalDate date, Short period, long afterId,
+                                              Integer limit, Supplier<List<ClassAttendanceRow>> loader) {
+        List<Object> key = List.of(className, date, period, afterId, limit != null ? limit : -1);
+        return get(classPages, key, classWriteKey(className, date, period), loader);
+    }
+
+    // Call after the write has committed
+    public void recordWrite(String studentEmail, ClassSession session) {
+        Write write = new Write(clock.incrementAndGet(), System.currentTimeMillis());
+        lastWrites.put(studentWriteKey(studentEmail), write);
+        lastWrites.put(classWriteKey(session.getClassName(), session.getSessionDate(), session.getPeriod()), write);
+    }
+
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("invalidations", invalidations.sum());
+        stats.put("evictions", studentStats.stats().evictionCount() + classPages.stats().evictionCount());
+        stats.put("size", studentStats.estimatedSize() + classPages.estimatedSize());
+        return stats;
+    }
+
+    private <V> V get(Cache<List<Object>, Stamped<V>> cache, List<Object> key, List<Object> writeKey,
+                      Supplier<V> loader) {
+        Write lastWrite = lastWrites.getIfPresent(writeKey);
+        Stamped<V> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            if (lastWrite == null || lastWrite.stamp <= cached.stamp) {
+                hits.increment();
+                return cached.value;
+            }
+            invalidations.increment();
+        }
+        misses.increment();
+        // Taken before the query: a write stamped after this may not be in the result
+        long stamp = clock.get();
+        boolean pin = lastWrite != null && System.currentTimeMillis() - lastWrite.at < pinAfterWriteMs;
+        V value = pin ? ReplicaRoutingDataSource.onPrimary(loader) : loader.get();
+        cache.put(key, new Stamped<>(value, stamp));
+        return value;
+    }
+
+    private static List<Object> studentWriteKey(String studentEmail) {
+        return List.of("student", studentEmail);
+    }
+
+    private static List<Object> classWriteKey(String className, LocalDate date, Short period) {
+        return List.of("class", className, date, period);
+    }
+
+    private static final class Write {
+        private final long stamp;
+        private final long at;
+
+        Write(long stamp, long at) {
+            this.stamp = stamp;
+            this.at = at;
+        }
+    }
+
+    private static final class Stamped<V> {
+        private final V value;
+        private final long stamp;
+
+        Stamped(V value, long stamp) {
+            this.value = value;
+            this.stamp = stamp;
+        }
+    }
+}
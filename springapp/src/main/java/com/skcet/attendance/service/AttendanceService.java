@@ -1,22 +1,44 @@
 package com.skcet.attendance.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.skcet.attendance.Entity.Attendance;
-import com.skcet.attendance.Repo.AttendanceRepository;
+import com.skcet.attendance.Entity.ClassSession;
+import com.skcet.attendance.Entity.StudentAttendanceCounter;
+import com.skcet.attendance.Repo.AttendanceJdbcRepository;
+import com.skcet.attendance.dto.ClassAttendancePage;
+import com.skcet.attendance.dto.ClassAttendanceRow;
+import com.skcet.attendance.dto.RollCallRequest;
+import com.skcet.attendance.dto.RollCallResponse;
 import org.springframework.stereotype.Service;
 
-import java.util.Base64;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 @Service
 public class AttendanceService {
 
-    private final AttendanceRepository repo;
+    private static final int MAX_PAGE_SIZE = 1000;
 
-    public AttendanceService(AttendanceRepository repo) {
-        this.repo = repo;
+    private final AttendanceStore store;
+    private final TokenService tokenService;
+    private final RedemptionIndex redemptionIndex;
+    private final AttendanceWriter writer;
+    private final ClassSessionResolver sessionResolver;
+    private final AttendanceQueryCache queryCache;
+
+    public AttendanceService(AttendanceStore store, TokenService tokenService,
+                             RedemptionIndex redemptionIndex, AttendanceWriter writer,
+                             ClassSessionResolver sessionResolver, AttendanceQueryCache queryCache) {
+        this.store = store;
+        this.tokenService = tokenService;
+        this.redemptionIndex = redemptionIndex;
+        this.writer = writer;
+        this.sessionResolver = sessionResolver;
+        this.queryCache = queryCache;
     }
 
     // ---------------------------
@@ -26,20 +48,18 @@ public class AttendanceService {
                                   String staffId,
                                   String staffName,
                                   String className,
-                                  String sessionDate,
-                                  String period,
+                                  LocalDate sessionDate,
+                                  Short period,
                                   boolean present) {
         try {
             Attendance att = new Attendance();
             att.setStudentEmail(studentEmail);
-            att.setStaffId(staffId);
-            att.setStaffName(staffName);
-            att.setClassName(className);
-            att.setSessionDate(sessionDate);
-            att.setPeriod(period);
+            att.setSession(sessionResolver.resolve(className, sessionDate, period, staffId, staffName));
             att.setPresent(present);
 
-            repo.save(att);
+            if (writer.save(att) != AttendanceJdbcRepository.UpsertResult.UNCHANGED) {
+                queryCache.recordWrite(studentEmail, att.getSession());
+            }
             return true;
         } catch (Exception e) {
             e.printStackTrace();
@@ -50,39 +70,95 @@ public class AttendanceService {
     // ---------------------------
     // 2️⃣ Token-based attendance
     // ---------------------------
-    public boolean markAttendanceFromToken(String studentEmail, String token) {
-        try {
-            // Decode Base64 JSON token
-            String json = new String(Base64.getDecoder().decode(token));
-            ObjectMapper mapper = new ObjectMapper();
-            Map<String, String> payload = mapper.readValue(json, Map.class);
+    public enum MarkResult { MARKED, INVALID_TOKEN, ALREADY_MARKED, FAILED }
 
-            // Create attendance record
-            Attendance att = new Attendance();
-            att.setStudentEmail(studentEmail);
-            att.setStaffId(payload.get("staffId"));
-            att.setStaffName(payload.get("staffName"));
-            att.setClassName(payload.get("className"));
-            att.setSessionDate(payload.get("sessionDate"));
-            att.setPeriod(payload.get("period"));
-            att.setPresent(true);
-
-            // Save to database
-            repo.save(att);
-            return true;
+    // Single ingest path: one validation (decode + signature + TTL + parse), then the typed payload is persisted
+    public MarkResult markAttendanceFromToken(String studentEmail, String token) {
+        TokenService.AttendancePayload payload = tokenService.validateToken(token);
+        if (payload == null) {
+            return MarkResult.INVALID_TOKEN;
+        }
+
+        // One redemption per token per student, answered in memory
+        if (!redemptionIndex.tryRedeem(payload.getRandomId(), studentEmail, payload.getExpiresAt())) {
+            return MarkResult.ALREADY_MARKED;
+        }
+
+        try {
+            // The unique key makes a duplicate scan (e.g. from another instance) a no-op
+            Attendance att = toAttendance(studentEmail, payload);
+            if (writer.save(att) == AttendanceJdbcRepository.UpsertResult.UNCHANGED) {
+                return MarkResult.ALREADY_MARKED;
+            }
+            queryCache.recordWrite(studentEmail, att.getSession());
+            return MarkResult.MARKED;
         } catch (Exception e) {
             e.printStackTrace();
-            return false;
+            redemptionIndex.release(payload.getRandomId(), studentEmail);
+            return MarkResult.FAILED;
+        }
+    }
+
+    private Attendance toAttendance(String studentEmail, TokenService.AttendancePayload payload) {
+        Attendance att = new Attendance();
+        att.setStudentEmail(studentEmail);
+        att.setSession(sessionResolver.resolve(payload.getClassName(),
+                ClassSession.parseSessionDate(payload.getSessionDate()),
+                ClassSession.parsePeriod(payload.getPeriod()),
+                payload.getStaffId(), payload.getStaffName()));
+        att.setPresent(true);
+        return att;
+    }
+
+    // ---------------------------
+    // Roll call: a whole section in one batch and one transaction
+    // ---------------------------
+    public RollCallResponse rollCall(RollCallRequest request) {
+        ClassSession session = sessionResolver.resolve(request.getClassName(), request.getSessionDate(),
+                ClassSession.parsePeriod(request.getPeriod()), request.getStaffId(), request.getStaffName());
+        List<Attendance> rows = new ArrayList<>(request.getEntries().size());
+        for (RollCallRequest.Entry entry : request.getEntries()) {
+            Attendance att = new Attendance();
+            att.setStudentEmail(entry.getStudentEmail());
+            att.setSession(session);
+            att.setPresent(entry.isPresent());
+            rows.add(att);
         }
+
+        List<AttendanceJdbcRepository.UpsertResult> results = store.upsertAll(rows);
+
+        int[] counts = new int[AttendanceJdbcRepository.UpsertResult.values().length];
+        List<RollCallResponse.StudentResult> studentResults = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            AttendanceJdbcRepository.UpsertResult result = results.get(i);
+            counts[result.ordinal()]++;
+            if (result != AttendanceJdbcRepository.UpsertResult.UNCHANGED) {
+                queryCache.recordWrite(rows.get(i).getStudentEmail(), session);
+            }
+            studentResults.add(new RollCallResponse.StudentResult(
+                    rows.get(i).getStudentEmail(), rows.get(i).isPresent(), result.name()));
+        }
+        return new RollCallResponse(
+                counts[AttendanceJdbcRepository.UpsertResult.INSERTED.ordinal()],
+                counts[AttendanceJdbcRepository.UpsertResult.UPDATED.ordinal()],
+                counts[AttendanceJdbcRepository.UpsertResult.UNCHANGED.ordinal()],
+                studentResults);
     }
 
     // ---------------------------
     // 3️⃣ Stats for student
     // ---------------------------
-    public Map<String, Integer> getStatsForStudent(String studentEmail , String date) {
-        int total = repo.countByStudentEmailAndSessionDate(studentEmail, date);
-        int present = repo.countByStudentEmailAndPresentTrueAndSessionDate(studentEmail, date);
-        int absent = repo.countByStudentEmailAndPresentFalseAndSessionDate(studentEmail, date);
+    // One store aggregate over [from, to] (inclusive); a single day is from == to. Cached until
+    // the student's next mark or the cache TTL.
+    public Map<String, Integer> getStatsForStudent(String studentEmail, LocalDate from, LocalDate to) {
+        return queryCache.studentStats(studentEmail, from, to, () -> loadStatsForStudent(studentEmail, from, to));
+    }
+
+    private Map<String, Integer> loadStatsForStudent(String studentEmail, LocalDate from, LocalDate to) {
+        AttendanceStore.Counts summary = store.summarizeStudent(studentEmail, from, to);
+        int total = (int) summary.getTotal();
+        int present = (int) summary.getPresent();
+        int absent = total - present;
         int late = 0; // Optional: if you track late separately, implement logic
 
         Map<String, Integer> stats = new HashMap<>();
@@ -91,10 +167,54 @@ public class AttendanceService {
         stats.put("absent", absent);
         stats.put("late", late);
 
-        return stats;
+        return Collections.unmodifiableMap(stats);
+    }
+    // ---------------------------
+    // 4️⃣ Counter-backed summaries
+    // ---------------------------
+    // Term totals for a student from the store's counters, without reading attendance history
+    public Map<String, Object> getTermSummary(String studentEmail, String className, String term) {
+        String t = term != null ? term : StudentAttendanceCounter.termOf(LocalDate.now());
+        Map<String, Object> summary = summary(store.studentTermCounts(studentEmail, className, t));
+        summary.put("term", t);
+        return summary;
+    }
+
+    public Map<String, Object> getClassDaySummary(String className, LocalDate date) {
+        return summary(store.classDayCounts(className, date));
+    }
+
+    // Recomputes all counters from the attendance rows; returns the number of rows read
+    public long rebuildCounters() {
+        return store.rebuildCounters();
+    }
+
+    private static Map<String, Object> summary(AttendanceStore.Counts counts) {
+        long present = counts.getPresent();
+        long absent = counts.getAbsent();
+        long total = counts.getTotal();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("total", total);
+        summary.put("present", present);
+        summary.put("absent", absent);
+        summary.put("percentage", total > 0 ? (double) present / total * 100 : 0);
+        return summary;
+    }
+
+    // Rows of one class session with id > afterId; everything when limit is null, else a page of at most
+    // min(limit, MAX_PAGE_SIZE) rows. The cursor is set whenever that clamped page came back full.
+    // Cached until the next mark in the session or the cache TTL.
+    public ClassAttendancePage getClassAttendance(String className, LocalDate date, Short period,
+                                                  long afterId, Integer limit) {
+        Integer size = limit != null ? Math.max(1, Math.min(limit, MAX_PAGE_SIZE)) : null;
+        List<ClassAttendanceRow> rows = queryCache.classPage(className, date, period, afterId, size,
+                () -> Collections.unmodifiableList(store.findClassSessionPage(className, date, period, afterId, size)));
+        Long nextCursor = size != null && rows.size() == size ? rows.get(rows.size() - 1).getId() : null;
+        return new ClassAttendancePage(rows, nextCursor);
+    }
+
+    public Map<String, Long> getCacheStats() {
+        return queryCache.stats();
     }
-    public List<Attendance> getClassAttendance(String className, String date, String period) {
-    return repo.findByClassNameAndSessionDateAndPeriod(className, date, period);
-}
 
 }
@@ -0,0 +1,72 @@
+package com.skcet.attendance.service;
+
+import com.skcet.attendance.Entity.Attendance;
+import com.skcet.attendance.Repo.AttendanceJdbcRepository.UpsertResult;
+import com.skcet.attendance.dto.ClassAttendanceRow;
+import com.skcet.attendance.dto.StudentAttendanceReportRow;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Storage behind {@link AttendanceService} and {@link AttendanceExportService}: class
+ * sessions, the one-row-per-student-per-session attendance table, its running
+ * counters and the listings and aggregates read from them.
+ *
+ * The backend is chosen per deployment with {@code attendance.store}:
+ * {@code jpa} (MySQL, the default), {@code firestore} or {@code memory}. Every
+ * implementation keeps the same semantics: upserts are idempotent on
+ * (student, session) and report what they changed, counters move with every
+ * change, and listings page by ascending row id.
+ */
+public interface AttendanceStore {
+
+    // Id of the (class, date, period) session, creating it with the given staff if it does not exist yet
+    long findOrCreateSession(String className, LocalDate sessionDate, short period,
+                             String staffId, String staffName);
+
+    // Writes one row keyed by (student, session) together with its counter changes
+    UpsertResult upsert(Attendance row);
+
+    // Writes rows and their counter changes as one unit where the backend allows; results are in row order
+    List<UpsertResult> upsertAll(List<Attendance> rows);
+
+    // A student's rows over [from, to] (inclusive)
+    Counts summarizeStudent(String studentEmail, LocalDate from, LocalDate to);
+
+    // Rows of one class session with id > afterId in id order; everything when limit is null
+    List<ClassAttendanceRow> findClassSessionPage(String className, LocalDate sessionDate, Short period,
+                                                  long afterId, Integer limit);
+
+    // Term counters of a student for one class, or summed over all classes when className is null
+    Counts studentTermCounts(String studentEmail, String className, String term);
+
+    Counts classDayCounts(String className, LocalDate sessionDate);
+
+    // Recomputes every counter from the rows; returns the number of rows read
+    long rebuildCounters();
+
+    // All periods of a class over [from, to], ordered by date, period and id. The caller closes the stream.
+    Stream<ClassAttendanceRow> streamClassRange(String className, LocalDate from, LocalDate to);
+
+    // Per-student totals for the classes over [from, to], ordered by class then student; a student's total is
+    // the sessions the class held in the range, whether or not they have a row for each. The caller closes the stream.
+    Stream<StudentAttendanceReportRow> streamClassReport(List<String> classNames, LocalDate from, LocalDate to);
+
+    final class Counts {
+        public static final Counts NONE = new Counts(0, 0);
+
+        private final long present;
+        private final long absent;
+
+        public Counts(long present, long absent) {
+            this.present = present;
+            this.absent = absent;
+        }
+
+        public long getPresent() { return present; }
+        public long getAbsent() { return absent; }
+        public long getTotal() { return present + absent; }
+    }
+}
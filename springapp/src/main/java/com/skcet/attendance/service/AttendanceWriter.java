@@ -0,0 +1,69 @@
+package com.skcet.attendance.service;
+
+import com.skcet.attendance.Entity.Attendance;
+import com.skcet.attendance.Repo.AttendanceJdbcRepository.UpsertResult;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Persists attendance rows for {@link AttendanceService} through the idempotent
+ * upsert of the configured {@link AttendanceStore}.
+ *
+ * By default every row is its own statement and commit. With
+ * {@code attendance.write.group-commit.enabled=true} concurrent marks are collected
+ * by a {@link MicroBatcher} and written with one {@link AttendanceStore#upsertAll} per batch;
+ * {@link #save} still returns only after the caller's batch has committed.
+ */
+@Component
+@Slf4j
+public class AttendanceWriter {
+
+    private static final long ACK_TIMEOUT_SECONDS = 30;
+
+    private final AttendanceStore store;
+    private final MicroBatcher<Attendance, UpsertResult> batcher;
+
+    public AttendanceWriter(AttendanceStore store,
+                            @Value("${attendance.write.group-commit.enabled:false}") boolean groupCommit,
+                            @Value("${attendance.write.group-commit.max-batch:200}") int maxBatch,
+                            @Value("${attendance.write.group-commit.linger-ms:5}") long lingerMs,
+                            @Value("${attendance.write.group-commit.queue-capacity:10000}") int queueCapacity) {
+        this.store = store;
+        this.batcher = groupCommit
+                ? new MicroBatcher<>("attendance-writer", maxBatch, lingerMs, queueCapacity, store::upsertAll)
+                : null;
+        if (groupCommit) {
+            log.info("Attendance group commit enabled (max batch {}, linger {} ms)", maxBatch, lingerMs);
+        }
+    }
+
+    // Writes one row; returns once it is committed and throws if the write failed
+    public UpsertResult save(Attendance attendance) {
+        if (batcher == null) {
+            return store.upsert(attendance);
+        }
+        try {
+            return batcher.submit(attendance).get(ACK_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Attendance batch write failed", e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Attendance batch write timed out", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for attendance batch", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (batcher != null) {
+            batcher.close();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.skcet.attendance.service;
+
+import com.skcet.attendance.Entity.ClassSession;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps (class, date, period) to its {@link ClassSession} row for the write path.
+ *
+ * Sessions never change once created, so resolved ones are cached for the life of
+ * the process and only the first mark of a session reaches the {@link AttendanceStore}. Marks
+ * arrive for today's sessions, so when the cache reaches
+ * {@code attendance.session-cache.max-entries} it is simply cleared.
+ */
+@Component
+public class ClassSessionResolver {
+
+    private final AttendanceStore sessions;
+    private final int maxEntries;
+    private final ConcurrentHashMap<Key, ClassSession> cache = new ConcurrentHashMap<>();
+
+    public ClassSessionResolver(AttendanceStore sessions,
+                                @Value("${attendance.session-cache.max-entries:50000}") int maxEntries) {
+        this.sessions = sessions;
+        this.maxEntries = maxEntries;
+    }
+
+    // A reference for writes: id and key are the row's, staff is recorded only if this call creates it
+    public ClassSession resolve(String className, LocalDate sessionDate, Short period,
+                                String staffId, String staffName) {
+        if (className == null || sessionDate == null || period == null) {
+            throw new IllegalArgumentException("className, sessionDate and period are required");
+        }
+        Key key = new Key(className, sessionDate, period);
+        ClassSession session = cache.get(key);
+        if (session != null) {
+            return session;
+        }
+
+        long id = sessions.findOrCreateSession(className, sessionDate, period, staffId, staffName);
+        session = new ClassSession(id, className, sessionDate, period, staffId, staffName);
+        if (cache.size() >= maxEntries) {
+            cache.clear();
+        }
+        ClassSession existing = cache.putIfAbsent(key, session);
+        return existing != null ? existing : session;
+    }
+
+    private static final class Key {
+        private final String className;
+        private final LocalDate sessionDate;
+        private final short period;
+
+        Key(String className, LocalDate sessionDate, short period) {
+            this.className = className;
+            this.sessionDate = sessionDate;
+            this.period = period;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return period == key.period && className.equals(key.className) && sessionDate.equals(key.sessionDate);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(className, sessionDate, period);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.skcet.attendance.service;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Helpers for the binary token formats: big-endian longs, varint-prefixed UTF-8
+ * strings and a constant-time compare. Everything works on caller-owned arrays
+ * so the scan path does not allocate beyond the decoded strings.
+ */
+final class CompactCodec {
+
+    private CompactCodec() {}
+
+    static void putLong(byte[] buf, int pos, long value) {
+        for (int i = 7; i >= 0; i--) {
+            buf[pos + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    static long getLong(byte[] buf, int pos) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (buf[pos + i] & 0xFF);
+        }
+        return value;
+    }
+
+    static void putInt(byte[] buf, int pos, int value) {
+        buf[pos] = (byte) (value >>> 24);
+        buf[pos + 1] = (byte) (value >>> 16);
+        buf[pos + 2] = (byte) (value >>> 8);
+        buf[pos + 3] = (byte) value;
+    }
+
+    static int getInt(byte[] buf, int pos) {
+        return ((buf[pos] & 0xFF) << 24) | ((buf[pos + 1] & 0xFF) << 16)
+                | ((buf[pos + 2] & 0xFF) << 8) | (buf[pos + 3] & 0xFF);
+    }
+
+    // Encoded size of a string field; null is stored as a single 0 byte
+    static int sizeOf(byte[] utf8) {
+        return utf8 == null ? 1 : varintSize(utf8.length + 1) + utf8.length;
+    }
+
+    static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    static int putString(byte[] buf, int pos, byte[] utf8) {
+        if (utf8 == null) {
+            buf[pos] = 0;
+            return pos + 1;
+        }
+        pos = putVarint(buf, pos, utf8.length + 1);
+        System.arraycopy(utf8, 0, buf, pos, utf8.length);
+        return pos + utf8.length;
+    }
+
+    // Constant-time comparison of two byte ranges of equal length
+    static boolean equalsConstantTime(byte[] a, int aOff, byte[] b, int bOff, int len) {
+        int diff = 0;
+        for (int i = 0; i < len; i++) {
+            diff |= a[aOff + i] ^ b[bOff + i];
+        }
+        return diff == 0;
+    }
+
+    static String toHex(long value) {
+        String hex = Long.toHexString(value);
+        return hex.length() == 16 ? hex : "0".repeat(16 - hex.length()) + hex;
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static int putVarint(byte[] buf, int pos, int value) {
+        while ((value & ~0x7F) != 0) {
+            buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf[pos++] = (byte) value;
+        return pos;
+    }
+
+    // Sequential reader over a payload region; throws on truncated input
+    static final class Reader {
+        private final byte[] buf;
+        private final int limit;
+        private int pos;
+
+        Reader(byte[] buf, int pos, int limit) {
+            this.buf = buf;
+            this.pos = pos;
+            this.limit = limit;
+        }
+
+        String readString() {
+            int len = readVarint() - 1;
+            if (len < 0) {
+                return null;
+            }
+            if (len > limit - pos) {
+                throw new IllegalArgumentException("Truncated payload");
+            }
+            String value = new String(buf, pos, len, StandardCharsets.UTF_8);
+            pos += len;
+            return value;
+        }
+
+        private int readVarint() {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                if (pos >= limit) {
+                    throw new IllegalArgumentException("Truncated payload");
+                }
+                byte b = buf[pos++];
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+    }
+}
@@ -0,0 +1,447 @@
+package com.skcet.attendance.service;
+
+import com.google.api.core.ApiFuture;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldPath;
+import com.google.cloud.firestore.FieldValue;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.SetOptions;
+import com.google.cloud.firestore.WriteBatch;
+import com.skcet.attendance.Entity.Attendance;
+import com.skcet.attendance.Entity.ClassSession;
+import com.skcet.attendance.Entity.StudentAttendanceCounter;
+import com.skcet.attendance.Repo.AttendanceJdbcRepository.UpsertResult;
+import com.skcet.attendance.dto.ClassAttendanceRow;
+import com.skcet.attendance.dto.StudentAttendanceReportRow;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Firestore backend ({@code attendance.store=firestore}), mirroring the MySQL tables:
+ *
+ *   class_sessions/{id}                      className, sessionDate, period, staffId, staffName
+ *   class_attendance/{sessionId}_{rowId}     rowId, sessionId, studentEmail, className, sessionDate, period, present
+ *   attendance_student_counter/{key}/shards/{n}    studentEmail, className, term, presentCount, absentCount
+ *   attendance_class_day_counter/{key}/shards/{n}  className, sessionDate, presentCount, absentCount
+ *
+ * Session ids come from a sequence document, incremented only when a session is
+ * created. A row's id is a 53-bit hash of (session, student), so re-marks hit the
+ * same document and pages are in a stable (not insertion) order. Upserts run in
+ * transactions that also apply the counter increments; Firestore's 500-write limit
+ * means {@link #upsertAll} commits in chunks of {@value #MAX_ROWS_PER_TRANSACTION} rows.
+ * Dates are stored as yyyy-MM-dd strings so that range filters compare correctly.
+ *
+ * Counters are sharded like the status counters of FirestoreService: each has
+ * {@code firestore.counters.shards} shard documents, a transaction increments one
+ * random shard per counter, and a read sums the shards. A class-day counter takes
+ * a mark from every student of the class, so a single document would cap the class
+ * at Firestore's sustained write rate per document.
+ */
+@Component
+@ConditionalOnProperty(name = "attendance.store", havingValue = "firestore")
+@Slf4j
+public class FirestoreAttendanceStore implements AttendanceStore {
+
+    // Each row can add a student counter increment, plus a few class-day increments per chunk
+    private static final int MAX_ROWS_PER_TRANSACTION = 200;
+    private static final int MAX_BATCH_WRITES = 500;
+    private static final long ROW_ID_MASK = (1L << 53) - 1;  // ids stay exact as JSON numbers in JavaScript
+    private static final String SHARDS = "shards";
+
+    private final Firestore firestore;
+    private final int counterShards;
+
+    public FirestoreAttendanceStore(Firestore firestore,
+                                    @Value("${firestore.counters.shards:10}") int counterShards) {
+        this.firestore = firestore;
+        this.counterShards = counterShards;
+    }
+
+    @Override
+    public long findOrCreateSession(String className, LocalDate sessionDate, short period,
+                                    String staffId, String staffName) {
+        Query existing = sessionQuery(className, sessionDate, period);
+        return await(firestore.runTransaction(tx -> {
+            List<QueryDocumentSnapshot> found = tx.get(existing).get().getDocuments();
+            if (!found.isEmpty()) {
+                return Long.parseLong(found.get(0).getId());
+            }
+            DocumentReference sequence = firestore.collection("sequences").document("class_session");
+            Long last = tx.get(sequence).get().getLong("value");
+            long id = (last != null ? last : 0) + 1;
+            Map<String, Object> session = new HashMap<>();
+            session.put("className", className);
+            session.put("sessionDate", sessionDate.toString());
+            session.put("period", (long) period);
+            session.put("staffId", staffId);
+            session.put("staffName", staffName);
+            tx.set(sequence, Map.of("value", id));
+            tx.create(sessions().document(String.valueOf(id)), session);
+            return id;
+        }));
+    }
+
+    @Override
+    public UpsertResult upsert(Attendance row) {
+        return upsertChunk(List.of(row)).get(0);
+    }
+
+    @Override
+    public List<UpsertResult> upsertAll(List<Attendance> rows) {
+        List<UpsertResult> results = new ArrayList<>(rows.size());
+        for (int from = 0; from < rows.size(); from += MAX_ROWS_PER_TRANSACTION) {
+            results.addAll(upsertChunk(rows.subList(from, Math.min(rows.size(), from + MAX_ROWS_PER_TRANSACTION))));
+        }
+        return results;
+    }
+
+    // Reads the rows, writes those that change and adds the counter deltas, all in one transaction
+    private List<UpsertResult> upsertChunk(List<Attendance> rows) {
+        DocumentReference[] refs = new DocumentReference[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            refs[i] = rowRef(rows.get(i).getSession().getId(), rows.get(i).getStudentEmail());
+        }
+        return await(firestore.runTransaction(tx -> {
+            List<DocumentSnapshot> current = tx.getAll(refs).get();
+            List<UpsertResult> results = new ArrayList<>(rows.size());
+            Map<DocumentReference, CounterChange> counterDeltas = new HashMap<>();
+            for (int i = 0; i < rows.size(); i++) {
+                Attendance row = rows.get(i);
+                DocumentSnapshot snapshot = current.get(i);
+                UpsertResult result = !snapshot.exists() ? UpsertResult.INSERTED
+                        : Boolean.valueOf(row.isPresent()).equals(snapshot.getBoolean("present"))
+                        ? UpsertResult.UNCHANGED : UpsertResult.UPDATED;
+                results.add(result);
+                if (result == UpsertResult.UNCHANGED) {
+                    continue;
+                }
+                tx.set(refs[i], rowFields(row));
+
+                // Same deltas as AttendanceCounterJdbcRepository: a new row adds one, a flip moves one
+                ClassSession session = row.getSession();
+                long present = row.isPresent() ? 1 : (result == UpsertResult.UPDATED ? -1 : 0);
+                long absent = !row.isPresent() ? 1 : (result == UpsertResult.UPDATED ? -1 : 0);
+                String term = StudentAttendanceCounter.termOf(session.getSessionDate());
+                add(counterDeltas, studentCounter(row.getStudentEmail(), session.getClassName(), term),
+                        Map.of("studentEmail", row.getStudentEmail(), "className", session.getClassName(), "term", term),
+                        present, absent);
+                add(counterDeltas, classDayCounter(session.getClassName(), session.getSessionDate()),
+                        Map.of("className", session.getClassName(), "sessionDate", session.getSessionDate().toString()),
+                        present, absent);
+            }
+            int shard = ThreadLocalRandom.current().nextInt(counterShards);
+            counterDeltas.forEach((ref, delta) -> tx.set(shard(ref, shard), delta.fields(true), SetOptions.merge()));
+            return results;
+        }));
+    }
+
+    @Override
+    public Counts summarizeStudent(String studentEmail, LocalDate from, LocalDate to) {
+        Query query = rows().whereEqualTo("studentEmail", studentEmail)
+                .whereGreaterThanOrEqualTo("sessionDate", from.toString())
+                .whereLessThanOrEqualTo("sessionDate", to.toString());
+        // Only the present flag is fetched; a student's range is a few hundred documents at most
+        long present = 0;
+        long absent = 0;
+        for (QueryDocumentSnapshot row : await(query.select("present").get())) {
+            if (Boolean.TRUE.equals(row.getBoolean("present"))) {
+                present++;
+            } else {
+                absent++;
+            }
+        }
+        return new Counts(present, absent);
+    }
+
+    @Override
+    public List<ClassAttendanceRow> findClassSessionPage(String className, LocalDate sessionDate, Short period,
+                                                         long afterId, Integer limit) {
+        List<QueryDocumentSnapshot> found = await(sessionQuery(className, sessionDate, period).get()).getDocuments();
+        if (found.isEmpty()) {
+            return List.of();
+        }
+        QueryDocumentSnapshot session = found.get(0);
+        Query page = rows().whereEqualTo("sessionId", Long.parseLong(session.getId()))
+                .orderBy("rowId").startAfter(afterId);
+        if (limit != null) {
+            page = page.limit(limit);
+        }
+        List<ClassAttendanceRow> result = new ArrayList<>();
+        for (QueryDocumentSnapshot row : await(page.get()).getDocuments()) {
+            result.add(toRow(row, session));
+        }
+        return result;
+    }
+
+    // Over all classes: every shard of the student's counters for the term (a collection group query on 'shards')
+    @Override
+    public Counts studentTermCounts(String studentEmail, String className, String term) {
+        if (className != null) {
+            return sum(studentCounter(studentEmail, className, term));
+        }
+        return sum(await(firestore.collectionGroup(SHARDS)
+                .whereEqualTo("studentEmail", studentEmail).whereEqualTo("term", term).get()).getDocuments());
+    }
+
+    @Override
+    public Counts classDayCounts(String className, LocalDate sessionDate) {
+        return sum(classDayCounter(className, sessionDate));
+    }
+
+    /**
+     * Recomputes both counter collections from the rows: each total goes to shard 0 and
+     * the other shards are deleted, as are counters without rows and any unsharded
+     * counter document. Unlike the MySQL rebuild this is not isolated from concurrent
+     * marks, so run it when no attendance is being taken.
+     */
+    @Override
+    public long rebuildCounters() {
+        Map<DocumentReference, CounterChange> totals = new HashMap<>();
+        long rowsRead = 0;
+        Query byId = rows().orderBy(FieldPath.documentId()).limit(MAX_BATCH_WRITES);
+        List<QueryDocumentSnapshot> page = await(byId.get()).getDocuments();
+        while (!page.isEmpty()) {
+            for (QueryDocumentSnapshot row : page) {
+                String className = row.getString("className");
+                String email = row.getString("studentEmail");
+                LocalDate date = LocalDate.parse(row.getString("sessionDate"));
+                String term = StudentAttendanceCounter.termOf(date);
+                long present = Boolean.TRUE.equals(row.getBoolean("present")) ? 1 : 0;
+                add(totals, studentCounter(email, className, term),
+                        Map.of("studentEmail", email, "className", className, "term", term), present, 1 - present);
+                add(totals, classDayCounter(className, date),
+                        Map.of("className", className, "sessionDate", date.toString()), present, 1 - present);
+                rowsRead++;
+            }
+            page = page.size() < MAX_BATCH_WRITES ? List.of()
+                    : await(byId.startAfter(page.get(page.size() - 1)).get()).getDocuments();
+        }
+
+        // Listed counters include those that only have shards; their own documents are left from before sharding
+        List<DocumentReference> existing = new ArrayList<>();
+        firestore.collection("attendance_student_counter").listDocuments().forEach(existing::add);
+        firestore.collection("attendance_class_day_counter").listDocuments().forEach(existing::add);
+
+        List<Consumer<WriteBatch>> writes = new ArrayList<>();
+        for (DocumentReference counter : existing) {
+            writes.add(batch -> batch.delete(counter));
+            if (!totals.containsKey(counter)) {
+                for (int i = 0; i < counterShards; i++) {
+                    DocumentReference shard = shard(counter, i);
+                    writes.add(batch -> batch.delete(shard));
+                }
+            }
+        }
+        for (Map.Entry<DocumentReference, CounterChange> total : totals.entrySet()) {
+            Map<String, Object> fields = total.getValue().fields(false);
+            DocumentReference first = shard(total.getKey(), 0);
+            writes.add(batch -> batch.set(first, fields));
+            for (int i = 1; i < counterShards; i++) {
+                DocumentReference shard = shard(total.getKey(), i);
+                writes.add(batch -> batch.delete(shard));
+            }
+        }
+        for (int from = 0; from < writes.size(); from += MAX_BATCH_WRITES) {
+            WriteBatch batch = firestore.batch();
+            writes.subList(from, Math.min(writes.size(), from + MAX_BATCH_WRITES)).forEach(write -> write.accept(batch));
+            await(batch.commit());
+        }
+        log.info("Rebuilt {} Firestore attendance counters from {} rows", totals.size(), rowsRead);
+        return rowsRead;
+    }
+
+    // Sessions are listed first, then each session's rows in id order; held in memory, not streamed
+    @Override
+    public Stream<ClassAttendanceRow> streamClassRange(String className, LocalDate from, LocalDate to) {
+        List<ClassAttendanceRow> result = new ArrayList<>();
+        for (QueryDocumentSnapshot session : sessionsOf(className, from, to)) {
+            for (QueryDocumentSnapshot row : await(rows().whereEqualTo("sessionId", Long.parseLong(session.getId()))
+                    .orderBy("rowId").get())) {
+                result.add(toRow(row, session));
+            }
+        }
+        return result.stream();
+    }
+
+    @Override
+    public Stream<StudentAttendanceReportRow> streamClassReport(List<String> classNames, LocalDate from, LocalDate to) {
+        List<StudentAttendanceReportRow> result = new ArrayList<>();
+        for (String className : new TreeSet<>(classNames)) {
+            Map<String, Long> present = new TreeMap<>();
+            for (QueryDocumentSnapshot row : await(rows().whereEqualTo("className", className)
+                    .whereGreaterThanOrEqualTo("sessionDate", from.toString())
+                    .whereLessThanOrEqualTo("sessionDate", to.toString()).get())) {
+                present.merge(row.getString("studentEmail"), Boolean.TRUE.equals(row.getBoolean("present")) ? 1L : 0L,
+                        Long::sum);
+            }
+            // Absent = sessions held - present, as rows exist only for marked students
+            long sessionCount = sessionsOf(className, from, to).size();
+            present.forEach((email, p) -> result.add(new StudentAttendanceReportRow(className, email, p, sessionCount)));
+        }
+        return result.stream();
+    }
+
+    private CollectionReference sessions() {
+        return firestore.collection("class_sessions");
+    }
+
+    private CollectionReference rows() {
+        return firestore.collection("class_attendance");
+    }
+
+    private Query sessionQuery(String className, LocalDate sessionDate, short period) {
+        return sessions().whereEqualTo("className", className)
+                .whereEqualTo("sessionDate", sessionDate.toString())
+                .whereEqualTo("period", (long) period)
+                .limit(1);
+    }
+
+    private List<QueryDocumentSnapshot> sessionsOf(String className, LocalDate from, LocalDate to) {
+        List<QueryDocumentSnapshot> found = new ArrayList<>(await(sessions().whereEqualTo("className", className)
+                .whereGreaterThanOrEqualTo("sessionDate", from.toString())
+                .whereLessThanOrEqualTo("sessionDate", to.toString()).get()).getDocuments());
+        found.sort(Comparator.comparing((QueryDocumentSnapshot s) -> s.getString("sessionDate"))
+                .thenComparing(s -> s.getLong("period")));
+        return found;
+    }
+
+    private DocumentReference rowRef(long sessionId, String studentEmail) {
+        return rows().document(sessionId + "_" + rowId(sessionId, studentEmail));
+    }
+
+    private static long rowId(long sessionId, String studentEmail) {
+        return RedemptionIndex.hash(String.valueOf(sessionId), studentEmail) & ROW_ID_MASK;
+    }
+
+    private static Map<String, Object> rowFields(Attendance row) {
+        ClassSession session = row.getSession();
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("rowId", rowId(session.getId(), row.getStudentEmail()));
+        fields.put("sessionId", session.getId());
+        fields.put("studentEmail", row.getStudentEmail());
+        fields.put("className", session.getClassName());
+        fields.put("sessionDate", session.getSessionDate().toString());
+        fields.put("period", session.getPeriod().longValue());
+        fields.put("present", row.isPresent());
+        return fields;
+    }
+
+    // Staff comes from the session document: the staff who opened the session, as in MySQL
+    private static ClassAttendanceRow toRow(DocumentSnapshot row, DocumentSnapshot session) {
+        Long period = session.getLong("period");
+        return new ClassAttendanceRow(row.getLong("rowId"), row.getString("studentEmail"),
+                session.getString("staffId"), session.getString("staffName"),
+                LocalDate.parse(session.getString("sessionDate")), period != null ? period.shortValue() : null,
+                Boolean.TRUE.equals(row.getBoolean("present")));
+    }
+
+    // Counter document ids are the URL-encoded key parts, so class names may contain '/'
+    private DocumentReference studentCounter(String studentEmail, String className, String term) {
+        return firestore.collection("attendance_student_counter").document(key(studentEmail, className, term));
+    }
+
+    private DocumentReference classDayCounter(String className, LocalDate sessionDate) {
+        return firestore.collection("attendance_class_day_counter").document(key(className, sessionDate.toString()));
+    }
+
+    private static DocumentReference shard(DocumentReference counter, int shard) {
+        return counter.collection(SHARDS).document(String.valueOf(shard));
+    }
+
+    private Counts sum(DocumentReference counter) {
+        DocumentReference[] shards = new DocumentReference[counterShards];
+        for (int i = 0; i < counterShards; i++) {
+            shards[i] = shard(counter, i);
+        }
+        return sum(await(firestore.getAll(shards)));
+    }
+
+    private static Counts sum(List<? extends DocumentSnapshot> shards) {
+        long present = 0;
+        long absent = 0;
+        for (DocumentSnapshot shard : shards) {
+            Counts counts = counts(shard);
+            present += counts.getPresent();
+            absent += counts.getAbsent();
+        }
+        return new Counts(present, absent);
+    }
+
+    private static String key(String... parts) {
+        StringBuilder sb = new StringBuilder();
+        for (String part : parts) {
+            if (sb.length() > 0) {
+                sb.append('|');
+            }
+            sb.append(URLEncoder.encode(part, StandardCharsets.UTF_8));
+        }
+        return sb.toString();
+    }
+
+    // Summed per counter document first so a chunk or rebuild writes each counter once
+    private static void add(Map<DocumentReference, CounterChange> changes, DocumentReference ref,
+                            Map<String, Object> keyFields, long present, long absent) {
+        CounterChange change = changes.computeIfAbsent(ref, k -> new CounterChange(keyFields));
+        change.present += present;
+        change.absent += absent;
+    }
+
+    private static Counts counts(DocumentSnapshot counter) {
+        if (!counter.exists()) {
+            return Counts.NONE;
+        }
+        Long present = counter.getLong("presentCount");
+        Long absent = counter.getLong("absentCount");
+        return new Counts(present != null ? present : 0, absent != null ? absent : 0);
+    }
+
+    private static final class CounterChange {
+        private final Map<String, Object> keyFields;
+        private long present;
+        private long absent;
+
+        CounterChange(Map<String, Object> keyFields) {
+            this.keyFields = keyFields;
+        }
+
+        // Increments to merge into the document, or absolute totals to replace it with
+        Map<String, Object> fields(boolean increment) {
+            Map<String, Object> fields = new HashMap<>(keyFields);
+            fields.put("presentCount", increment ? FieldValue.increment(present) : present);
+            fields.put("absentCount", increment ? FieldValue.increment(absent) : absent);
+            return fields;
+        }
+    }
+
+    private static <T> T await(ApiFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for Firestore", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Firestore request failed", e.getCause());
+        }
+    }
+}
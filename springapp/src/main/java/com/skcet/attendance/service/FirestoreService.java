@@ -1,31 +1,88 @@
 package com.skcet.attendance.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.api.core.ApiFuture;
+import com.google.api.gax.rpc.ApiException;
+import com.google.api.gax.rpc.StatusCode;
+import com.google.cloud.Timestamp;
 import com.google.cloud.firestore.*;
 import com.skcet.attendance.dto.AttendanceRecord;
 import com.skcet.attendance.model.FirebaseAuthenticationToken;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Service
 public class FirestoreService {
 
     private static final Logger log = LoggerFactory.getLogger(FirestoreService.class);
+
+    // Status counters: attendance_stats/{all | yyyy-MM-dd}/shards/{0..shards-1}, one field per status
+    private static final String STATS_COLLECTION = "attendance_stats";
+    private static final String ALL_TIME = "all";
+    private static final List<String> STATUSES = List.of("present", "late", "absent");
+    private static final int MAX_BATCH_WRITES = 500;
+    // Leaves room in a 500-write batch for the counter shards a batch of records touches
+    private static final int MAX_RECORDS_PER_BATCH = 400;
+
     private final Firestore firestore;
+    private final ObjectMapper objectMapper;
+    private final int counterShards;
+    private final MicroBatcher<AttendanceRecord, AttendanceRecord> attendanceWrites;
 
-    public FirestoreService(Firestore firestore) {
+    public FirestoreService(Firestore firestore, ObjectMapper objectMapper,
+                            @Value("${firestore.stats.shards:10}") int counterShards,
+                            @Value("${firestore.write.max-batch:200}") int maxBatch,
+                            @Value("${firestore.write.linger-ms:10}") long lingerMs,
+                            @Value("${firestore.write.queue-capacity:5000}") int queueCapacity) {
         this.firestore = firestore;
+        this.objectMapper = objectMapper;
+        this.counterShards = counterShards;
+        this.attendanceWrites = new MicroBatcher<>("firestore-attendance",
+                Math.min(maxBatch, MAX_RECORDS_PER_BATCH), lingerMs, queueCapacity, this::commitAttendance);
+    }
+
+    public CompletableFuture<AttendanceRecord> saveAttendance(String email, String sessionId, double confidence) {
+        return saveAttendance(email, sessionId, confidence, null);
     }
 
-    public void saveAttendance(String email, String sessionId, double confidence) {
+    /**
+     * Queues an attendance record and returns at once. Records saved concurrently are
+     * committed together, with their counter increments, as one WriteBatch per
+     * {@code firestore.write.max-batch} records; the future completes when that batch
+     * has committed and fails if it did not. When {@code firestore.write.queue-capacity}
+     * records are waiting, callers block until the writer catches up.
+     *
+     * With a QR token's randomId the document id is derived from (randomId, email), so
+     * a second redemption of the token by the student, on any instance, cannot create
+     * a second record: the future then completes with null.
+     */
+    public CompletableFuture<AttendanceRecord> saveAttendance(String email, String sessionId, double confidence,
+                                                              String randomId) {
         try {
-            String attendanceId = UUID.randomUUID().toString();
+            String attendanceId = randomId != null ? attendanceId(randomId, email) : UUID.randomUUID().toString();
             LocalDateTime now = LocalDateTime.now();
 
             // Determine status based on confidence and time
@@ -42,44 +99,370 @@ public class FirestoreService {
                     confidence
             );
 
-            firestore.collection("attendance")
-                    .document(attendanceId)
-                    .set(record)
-                    .get();
-
-            log.info("Attendance saved for student: {} with status: {}", email, status);
+            return attendanceWrites.submit(record).whenComplete((saved, error) -> {
+                if (error != null) {
+                    log.error("Failed to save attendance: {}", error.getMessage(), error);
+                } else if (saved == null) {
+                    log.warn("Attendance already recorded for student: {} ({})", email, attendanceId);
+                } else {
+                    log.info("Attendance saved for student: {} with status: {}", email, status);
+                }
+            });
 
         } catch (Exception e) {
             log.error("Failed to save attendance: {}", e.getMessage(), e);
-            throw new RuntimeException("Failed to save attendance", e);
+            return CompletableFuture.failedFuture(new RuntimeException("Failed to save attendance", e));
         }
     }
 
-    public List<AttendanceRecord> getAllAttendance() {
+    // One document per (token, student); hash as in RedemptionIndex, so the id is fixed-length and path-safe
+    static String attendanceId(String randomId, String email) {
+        return String.format("%016x", RedemptionIndex.hash(randomId, email));
+    }
+
+    /**
+     * Writes one batch of records and their counter increments in a single atomic
+     * WriteBatch (one RPC). Increments are summed per counter document first, so a
+     * batch adds only a couple of writes for the counters; one random shard per batch
+     * keeps concurrent instances from contending on a single counter document.
+     * Runs on the batcher thread; overridable for an in-memory stand-in.
+     *
+     * Records are created, not overwritten. If one already exists the whole batch is
+     * rejected, so the records are then committed one by one; the result for each
+     * record that already existed is null (its counters are not incremented again).
+     */
+    protected List<AttendanceRecord> commitAttendance(List<AttendanceRecord> records) {
         try {
-            QuerySnapshot snapshot = firestore.collection("attendance")
-                    .orderBy("timestamp", Query.Direction.DESCENDING)
-                    .get()
-                    .get();
+            commitBatch(records);
+            return records;
+        } catch (IllegalStateException e) {
+            if (!alreadyExists(e)) {
+                throw e;
+            }
+        }
+        List<AttendanceRecord> results = new ArrayList<>(records.size());
+        for (AttendanceRecord record : records) {
+            try {
+                commitBatch(List.of(record));
+                results.add(record);
+            } catch (IllegalStateException e) {
+                if (!alreadyExists(e)) {
+                    throw e;
+                }
+                results.add(null);
+            }
+        }
+        return results;
+    }
 
-            List<AttendanceRecord> records = new ArrayList<>();
-            for (QueryDocumentSnapshot document : snapshot) {
-                records.add(document.toObject(AttendanceRecord.class));
+    private static boolean alreadyExists(Throwable error) {
+        for (Throwable e = error; e != null; e = e.getCause()) {
+            if (e instanceof ApiException
+                    && ((ApiException) e).getStatusCode().getCode() == StatusCode.Code.ALREADY_EXISTS) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void commitBatch(List<AttendanceRecord> records) {
+        WriteBatch batch = firestore.batch();
+        Map<String, Map<String, Long>> increments = new HashMap<>();
+        for (AttendanceRecord record : records) {
+            batch.create(firestore.collection("attendance").document(record.getId()), record);
+            increments.computeIfAbsent(ALL_TIME, k -> new HashMap<>()).merge(record.getStatus(), 1L, Long::sum);
+            increments.computeIfAbsent(record.getTimestamp().toLocalDate().toString(), k -> new HashMap<>())
+                    .merge(record.getStatus(), 1L, Long::sum);
+        }
+        int shard = ThreadLocalRandom.current().nextInt(counterShards);
+        for (Map.Entry<String, Map<String, Long>> scope : increments.entrySet()) {
+            Map<String, Object> fields = new HashMap<>();
+            scope.getValue().forEach((status, count) -> fields.put(status, FieldValue.increment(count)));
+            batch.set(counterShard(scope.getKey(), shard), fields, SetOptions.merge());
+        }
+
+        try {
+            batch.commit().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while committing attendance", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to commit attendance batch", e.getCause());
+        }
+    }
+
+    // Commits whatever is queued before shutdown
+    @PreDestroy
+    public void shutdown() {
+        attendanceWrites.close();
+    }
+
+    // Per-status totals for all time (date == null) or one day, from the counter shards only
+    public Map<String, Long> getStatusCounts(LocalDate date) {
+        try {
+            String scope = date != null ? date.toString() : ALL_TIME;
+            DocumentReference[] shards = new DocumentReference[counterShards];
+            for (int i = 0; i < counterShards; i++) {
+                shards[i] = counterShard(scope, i);
+            }
+            Map<String, Long> counts = emptyCounts();
+            for (DocumentSnapshot shard : firestore.getAll(shards).get()) {
+                if (!shard.exists()) {
+                    continue;
+                }
+                for (String status : STATUSES) {
+                    Long value = shard.getLong(status);
+                    if (value != null) {
+                        counts.merge(status, value, Long::sum);
+                    }
+                }
             }
+            return counts;
+
+        } catch (Exception e) {
+            log.error("Failed to read attendance counters: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to read attendance counters", e);
+        }
+    }
 
+    /**
+     * Recomputes every counter from the attendance records: totals are written to shard 0
+     * of each scope and the other shards are zeroed. Saves made while it runs can be
+     * counted twice or not at all, so run it when no attendance is being taken.
+     * Returns the number of records read.
+     */
+    public long rebuildStatusCounters() {
+        try {
+            Map<String, Map<String, Long>> totals = new HashMap<>();
+            long records = 0;
+            Iterator<List<QueryDocumentSnapshot>> pages = attendancePages(MAX_BATCH_WRITES);
+            while (pages.hasNext()) {
+                for (QueryDocumentSnapshot document : pages.next()) {
+                    String status = document.getString("status");
+                    LocalDate day = dayOf(document.get("timestamp"));
+                    if (STATUSES.contains(status)) {
+                        totals.computeIfAbsent(ALL_TIME, k -> emptyCounts()).merge(status, 1L, Long::sum);
+                        if (day != null) {
+                            totals.computeIfAbsent(day.toString(), k -> emptyCounts()).merge(status, 1L, Long::sum);
+                        }
+                    }
+                    records++;
+                }
+            }
+
+            // Scopes that no longer have records are reset too
+            for (DocumentReference scope : firestore.collection(STATS_COLLECTION).listDocuments()) {
+                totals.putIfAbsent(scope.getId(), emptyCounts());
+            }
+
+            WriteBatch batch = firestore.batch();
+            int writes = 0;
+            for (Map.Entry<String, Map<String, Long>> scope : totals.entrySet()) {
+                for (int i = 0; i < counterShards; i++) {
+                    batch.set(counterShard(scope.getKey(), i), i == 0 ? new HashMap<>(scope.getValue()) : emptyCounts());
+                    if (++writes == MAX_BATCH_WRITES) {
+                        batch.commit().get();
+                        batch = firestore.batch();
+                        writes = 0;
+                    }
+                }
+            }
+            if (writes > 0) {
+                batch.commit().get();
+            }
+            log.info("Rebuilt attendance counters for {} scopes from {} records", totals.size(), records);
             return records;
 
         } catch (Exception e) {
-            log.error("Failed to get attendance records: {}", e.getMessage(), e);
-            throw new RuntimeException("Failed to get attendance records", e);
+            log.error("Failed to rebuild attendance counters: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to rebuild attendance counters", e);
+        }
+    }
+
+    private DocumentReference counterShard(String scope, int shard) {
+        return firestore.collection(STATS_COLLECTION).document(scope)
+                .collection("shards").document(String.valueOf(shard));
+    }
+
+    private static Map<String, Long> emptyCounts() {
+        Map<String, Long> counts = new HashMap<>();
+        for (String status : STATUSES) {
+            counts.put(status, 0L);
         }
+        return counts;
+    }
+
+    /**
+     * Rewrites record timestamps still stored as LocalDateTime bean maps (written before
+     * AttendanceRecord mapped its timestamp to a native Timestamp) as Timestamps, so
+     * every record sorts by time and reads back with toObject. Walks the collection in
+     * document id order, one batch per page; safe to re-run. Returns the number converted.
+     */
+    public long backfillTimestamps() {
+        try {
+            Query byId = firestore.collection("attendance").orderBy(FieldPath.documentId()).limit(MAX_BATCH_WRITES);
+            List<QueryDocumentSnapshot> page = byId.get().get().getDocuments();
+            long converted = 0;
+            while (!page.isEmpty()) {
+                WriteBatch batch = firestore.batch();
+                int writes = 0;
+                for (QueryDocumentSnapshot document : page) {
+                    LocalDateTime legacy = legacyDateTime(document.get("timestamp"));
+                    if (legacy != null) {
+                        batch.update(document.getReference(), "timestamp", AttendanceRecord.toTimestamp(legacy));
+                        writes++;
+                    }
+                }
+                if (writes > 0) {
+                    batch.commit().get();
+                    converted += writes;
+                }
+                page = page.size() < MAX_BATCH_WRITES ? List.of()
+                        : byId.startAfter(page.get(page.size() - 1)).get().get().getDocuments();
+            }
+            log.info("Converted {} attendance timestamps to Firestore Timestamps", converted);
+            return converted;
+
+        } catch (Exception e) {
+            log.error("Failed to backfill attendance timestamps: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to backfill attendance timestamps", e);
+        }
+    }
+
+    // Native Timestamps, or LocalDateTime bean maps on records not yet backfilled
+    private static LocalDate dayOf(Object timestamp) {
+        if (timestamp instanceof Timestamp) {
+            return LocalDate.ofInstant(((Timestamp) timestamp).toDate().toInstant(), ZoneId.systemDefault());
+        }
+        LocalDateTime legacy = legacyDateTime(timestamp);
+        return legacy != null ? legacy.toLocalDate() : null;
+    }
+
+    // A LocalDateTime as the bean mapper stored it (year, monthValue, dayOfMonth, hour, ...); null for anything else
+    static LocalDateTime legacyDateTime(Object timestamp) {
+        if (!(timestamp instanceof Map)) {
+            return null;
+        }
+        Map<?, ?> fields = (Map<?, ?>) timestamp;
+        Object year = fields.get("year");
+        Object month = fields.get("monthValue");
+        Object day = fields.get("dayOfMonth");
+        if (!(year instanceof Number && month instanceof Number && day instanceof Number)) {
+            return null;
+        }
+        return LocalDateTime.of(((Number) year).intValue(), ((Number) month).intValue(), ((Number) day).intValue(),
+                intField(fields, "hour"), intField(fields, "minute"), intField(fields, "second"), intField(fields, "nano"));
+    }
+
+    private static int intField(Map<?, ?> fields, String name) {
+        Object value = fields.get(name);
+        return value instanceof Number ? ((Number) value).intValue() : 0;
+    }
+
+    // Newest-first page of at most limit records after the record with id 'after' (null = first page)
+    public AttendancePage getAttendancePage(String after, int limit) {
+        return page(attendanceByTimestamp(), after, limit);
+    }
+
+    // Same contract as getAttendancePage, over the records with one status.
+    // Needs a composite index on attendance: status, timestamp desc, __name__ desc.
+    public AttendancePage getStatusPage(String status, String after, int limit) {
+        return page(newestFirst(firestore.collection("attendance").whereEqualTo("status", status)), after, limit);
+    }
+
+    private AttendancePage page(Query ordered, String after, int limit) {
+        try {
+            Query query = ordered.limit(limit);
+            if (after != null) {
+                DocumentSnapshot cursor = firestore.collection("attendance").document(after).get().get();
+                if (!cursor.exists()) {
+                    throw new IllegalArgumentException("Unknown cursor: " + after);
+                }
+                query = query.startAfter(cursor);
+            }
+            List<QueryDocumentSnapshot> documents = query.get().get().getDocuments();
+
+            List<AttendanceRecord> records = new ArrayList<>(documents.size());
+            for (QueryDocumentSnapshot document : documents) {
+                records.add(document.toObject(AttendanceRecord.class));
+            }
+            String nextCursor = documents.size() == limit ? documents.get(documents.size() - 1).getId() : null;
+            return new AttendancePage(records, nextCursor);
+
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Failed to get attendance page: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to get attendance page", e);
+        }
+    }
+
+    // Every record, newest first, as one JSON object per line. Only one page is held at a time and
+    // the next page is requested before the current one is written.
+    public long writeAttendanceNdjson(int pageSize, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(AttendanceRecord.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long count = 0;
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            json.setRootValueSeparator(null);
+            Iterator<List<QueryDocumentSnapshot>> pages = attendancePages(pageSize);
+            while (pages.hasNext()) {
+                for (QueryDocumentSnapshot document : pages.next()) {
+                    writer.writeValue(json, document.toObject(AttendanceRecord.class));
+                    json.writeRaw('\n');
+                    count++;
+                }
+                json.flush();
+            }
+        }
+        log.info("Streamed {} attendance records", count);
+        return count;
+    }
+
+    private Query attendanceByTimestamp() {
+        return newestFirst(firestore.collection("attendance"));
+    }
+
+    // The listing order, shared with AttendanceProjection.NEWEST_FIRST: timestamp desc, then document id desc
+    private static Query newestFirst(Query query) {
+        return query.orderBy("timestamp", Query.Direction.DESCENDING)
+                .orderBy(FieldPath.documentId(), Query.Direction.DESCENDING);
+    }
+
+    // Pages of the ordered collection; each page's query starts after the last document of the previous one
+    private Iterator<List<QueryDocumentSnapshot>> attendancePages(int pageSize) {
+        return new Iterator<>() {
+            private ApiFuture<QuerySnapshot> pending = attendanceByTimestamp().limit(pageSize).get();
+
+            @Override
+            public boolean hasNext() {
+                return pending != null;
+            }
+
+            @Override
+            public List<QueryDocumentSnapshot> next() {
+                if (pending == null) {
+                    throw new NoSuchElementException();
+                }
+                List<QueryDocumentSnapshot> page;
+                try {
+                    page = pending.get().getDocuments();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while reading attendance", e);
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Failed to read attendance page", e.getCause());
+                }
+                pending = page.size() < pageSize ? null
+                        : attendanceByTimestamp().startAfter(page.get(page.size() - 1)).limit(pageSize).get();
+                return page;
+            }
+        };
     }
 
     public List<AttendanceRecord> getStudentAttendance(String email) {
         try {
-            QuerySnapshot snapshot = firestore.collection("attendance")
-                    .whereEqualTo("email", email)
-                    .orderBy("timestamp", Query.Direction.DESCENDING)
+            QuerySnapshot snapshot = newestFirst(firestore.collection("attendance").whereEqualTo("email", email))
                     .get()
                     .get();
 
@@ -130,6 +513,19 @@ public class FirestoreService {
         }
     }
 
+    public static class AttendancePage {
+        private final List<AttendanceRecord> records;
+        private final String nextCursor;  // null on the last page
+
+        public AttendancePage(List<AttendanceRecord> records, String nextCursor) {
+            this.records = records;
+            this.nextCursor = nextCursor;
+        }
+
+        public List<AttendanceRecord> getRecords() { return records; }
+        public String getNextCursor() { return nextCursor; }
+    }
+
     // Inner class for student profile
     public static class StudentProfile {
         private String email;
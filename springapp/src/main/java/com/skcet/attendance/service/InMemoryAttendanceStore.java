@@ -0,0 +1,395 @@
+package com.skcet.attendance.service;
+
+import com.skcet.attendance.Entity.Attendance;
+import com.skcet.attendance.Entity.ClassSession;
+import com.skcet.attendance.Entity.StudentAttendanceCounter;
+import com.skcet.attendance.Repo.AttendanceJdbcRepository.UpsertResult;
+import com.skcet.attendance.dto.ClassAttendanceRow;
+import com.skcet.attendance.dto.StudentAttendanceReportRow;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Process-local store for benchmarks, load tests and offline runs ({@code attendance.store=memory}).
+ *
+ * Students and sessions are interned to dense ints, and rows are kept column-wise
+ * in primitive arrays: row id n lives at index n - 1. A (student, session) pair is
+ * folded into one long and found through an open-addressing long-to-int table, and
+ * each session and student keeps the int ids of its rows in id order. Counters are
+ * not stored: term and class-day totals are summed from a student's or a day's rows,
+ * which is always exact and cheap at in-memory sizes. Nothing survives a restart.
+ */
+@Component
+@ConditionalOnProperty(name = "attendance.store", havingValue = "memory")
+public class InMemoryAttendanceStore implements AttendanceStore {
+
+    private static final Comparator<ClassSession> SESSION_ORDER =
+            Comparator.comparing(ClassSession::getSessionDate).thenComparing(ClassSession::getPeriod);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> studentIds = new HashMap<>();
+    private final List<String> students = new ArrayList<>();
+    private final List<IntList> studentRows = new ArrayList<>();
+
+    private final Map<List<Object>, Integer> sessionIds = new HashMap<>();
+    private final List<ClassSession> sessions = new ArrayList<>();
+    private final List<IntList> sessionRows = new ArrayList<>();
+    private final Map<String, IntList> classSessions = new HashMap<>();
+
+    private final LongIntMap rowByKey = new LongIntMap();
+    private int[] rowStudent = new int[1024];
+    private int[] rowSession = new int[1024];
+    private boolean[] rowPresent = new boolean[1024];
+    private int rowCount;
+
+    @Override
+    public long findOrCreateSession(String className, LocalDate sessionDate, short period,
+                                    String staffId, String staffName) {
+        List<Object> key = List.of(className, sessionDate, period);
+        lock.readLock().lock();
+        try {
+            Integer index = sessionIds.get(key);
+            if (index != null) {
+                return index + 1;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        lock.writeLock().lock();
+        try {
+            Integer index = sessionIds.get(key);
+            if (index == null) {
+                index = sessions.size();
+                sessions.add(new ClassSession((long) index + 1, className, sessionDate, period, staffId, staffName));
+                sessionRows.add(new IntList());
+                sessionIds.put(key, index);
+                classSessions.computeIfAbsent(className, k -> new IntList()).add(index);
+            }
+            return index + 1;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public UpsertResult upsert(Attendance row) {
+        lock.writeLock().lock();
+        try {
+            return write(row);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<UpsertResult> upsertAll(List<Attendance> rows) {
+        List<UpsertResult> results = new ArrayList<>(rows.size());
+        lock.writeLock().lock();
+        try {
+            for (Attendance row : rows) {
+                results.add(write(row));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return results;
+    }
+
+    @Override
+    public Counts summarizeStudent(String studentEmail, LocalDate from, LocalDate to) {
+        lock.readLock().lock();
+        try {
+            Integer student = studentIds.get(studentEmail);
+            if (student == null) {
+                return Counts.NONE;
+            }
+            long present = 0;
+            long absent = 0;
+            IntList rows = studentRows.get(student);
+            for (int i = 0; i < rows.size; i++) {
+                int row = rows.values[i];
+                LocalDate date = sessions.get(rowSession[row]).getSessionDate();
+                if (!date.isBefore(from) && !date.isAfter(to)) {
+                    if (rowPresent[row]) {
+                        present++;
+                    } else {
+                        absent++;
+                    }
+                }
+            }
+            return new Counts(present, absent);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<ClassAttendanceRow> findClassSessionPage(String className, LocalDate sessionDate, Short period,
+                                                         long afterId, Integer limit) {
+        lock.readLock().lock();
+        try {
+            Integer session = sessionIds.get(List.of(className, sessionDate, period));
+            if (session == null) {
+                return List.of();
+            }
+            IntList rows = sessionRows.get(session);
+            // Row indexes are appended in id order; ids above afterId are the indexes from afterId on
+            int start = Arrays.binarySearch(rows.values, 0, rows.size, (int) Math.max(0, Math.min(afterId, Integer.MAX_VALUE)));
+            start = start >= 0 ? start : -start - 1;
+            int end = limit != null ? (int) Math.min(rows.size, (long) start + limit) : rows.size;
+            List<ClassAttendanceRow> page = new ArrayList<>(Math.max(0, end - start));
+            for (int i = start; i < end; i++) {
+                page.add(toRow(rows.values[i]));
+            }
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Counts studentTermCounts(String studentEmail, String className, String term) {
+        lock.readLock().lock();
+        try {
+            Integer student = studentIds.get(studentEmail);
+            if (student == null) {
+                return Counts.NONE;
+            }
+            long present = 0;
+            long absent = 0;
+            IntList rows = studentRows.get(student);
+            for (int i = 0; i < rows.size; i++) {
+                int row = rows.values[i];
+                ClassSession session = sessions.get(rowSession[row]);
+                if ((className == null || className.equals(session.getClassName()))
+                        && term.equals(StudentAttendanceCounter.termOf(session.getSessionDate()))) {
+                    if (rowPresent[row]) {
+                        present++;
+                    } else {
+                        absent++;
+                    }
+                }
+            }
+            return new Counts(present, absent);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Counts classDayCounts(String className, LocalDate sessionDate) {
+        lock.readLock().lock();
+        try {
+            long present = 0;
+            long absent = 0;
+            for (int session : sessionsOf(className, sessionDate, sessionDate)) {
+                IntList rows = sessionRows.get(session);
+                for (int i = 0; i < rows.size; i++) {
+                    if (rowPresent[rows.values[i]]) {
+                        present++;
+                    } else {
+                        absent++;
+                    }
+                }
+            }
+            return new Counts(present, absent);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Totals are computed from the rows on every read, so there is nothing to rebuild
+    @Override
+    public long rebuildCounters() {
+        lock.readLock().lock();
+        try {
+            return rowCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Materialized under the read lock, so the stream does not see later writes
+    @Override
+    public Stream<ClassAttendanceRow> streamClassRange(String className, LocalDate from, LocalDate to) {
+        lock.readLock().lock();
+        try {
+            List<ClassAttendanceRow> result = new ArrayList<>();
+            for (int session : sessionsOf(className, from, to)) {
+                IntList rows = sessionRows.get(session);
+                for (int i = 0; i < rows.size; i++) {
+                    result.add(toRow(rows.values[i]));
+                }
+            }
+            return result.stream();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Stream<StudentAttendanceReportRow> streamClassReport(List<String> classNames, LocalDate from, LocalDate to) {
+        lock.readLock().lock();
+        try {
+            List<StudentAttendanceReportRow> result = new ArrayList<>();
+            for (String className : new TreeSet<>(classNames)) {
+                Map<String, Long> present = new TreeMap<>();
+                List<Integer> held = sessionsOf(className, from, to);
+                for (int session : held) {
+                    IntList rows = sessionRows.get(session);
+                    for (int i = 0; i < rows.size; i++) {
+                        int row = rows.values[i];
+                        present.merge(students.get(rowStudent[row]), rowPresent[row] ? 1L : 0L, Long::sum);
+                    }
+                }
+                long sessionCount = held.size();
+                present.forEach((email, p) -> result.add(new StudentAttendanceReportRow(className, email, p, sessionCount)));
+            }
+            return result.stream();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Caller holds the write lock
+    private UpsertResult write(Attendance att) {
+        int session = (int) (att.getSession().getId() - 1);
+        if (session < 0 || session >= sessions.size()) {
+            throw new IllegalArgumentException("Unknown session " + att.getSession().getId());
+        }
+        Integer student = studentIds.get(att.getStudentEmail());
+        if (student == null) {
+            student = students.size();
+            students.add(att.getStudentEmail());
+            studentRows.add(new IntList());
+            studentIds.put(att.getStudentEmail(), student);
+        }
+
+        long key = ((long) (student + 1) << 32) | session;
+        int existing = rowByKey.get(key);
+        if (existing != 0) {
+            int row = existing - 1;
+            if (rowPresent[row] == att.isPresent()) {
+                return UpsertResult.UNCHANGED;
+            }
+            rowPresent[row] = att.isPresent();
+            return UpsertResult.UPDATED;
+        }
+
+        if (rowCount == rowStudent.length) {
+            int capacity = rowCount * 2;
+            rowStudent = Arrays.copyOf(rowStudent, capacity);
+            rowSession = Arrays.copyOf(rowSession, capacity);
+            rowPresent = Arrays.copyOf(rowPresent, capacity);
+        }
+        int row = rowCount++;
+        rowStudent[row] = student;
+        rowSession[row] = session;
+        rowPresent[row] = att.isPresent();
+        rowByKey.put(key, row + 1);
+        sessionRows.get(session).add(row);
+        studentRows.get(student).add(row);
+        return UpsertResult.INSERTED;
+    }
+
+    // Sessions of a class over [from, to] in date and period order; caller holds a lock
+    private List<Integer> sessionsOf(String className, LocalDate from, LocalDate to) {
+        IntList all = classSessions.get(className);
+        if (all == null) {
+            return List.of();
+        }
+        List<Integer> result = new ArrayList<>();
+        for (int i = 0; i < all.size; i++) {
+            LocalDate date = sessions.get(all.values[i]).getSessionDate();
+            if (!date.isBefore(from) && !date.isAfter(to)) {
+                result.add(all.values[i]);
+            }
+        }
+        result.sort(Comparator.comparing(sessions::get, SESSION_ORDER));
+        return result;
+    }
+
+    private ClassAttendanceRow toRow(int row) {
+        ClassSession session = sessions.get(rowSession[row]);
+        return new ClassAttendanceRow((long) row + 1, students.get(rowStudent[row]), session.getStaffId(),
+                session.getStaffName(), session.getSessionDate(), session.getPeriod(), rowPresent[row]);
+    }
+
+    // Growable int array; values past size are unused
+    private static final class IntList {
+        private int[] values = new int[8];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+
+    // Open-addressing long -> int map with linear probing; key 0 and value 0 mean empty
+    private static final class LongIntMap {
+        private long[] keys = new long[1024];
+        private int[] values = new int[1024];
+        private int size;
+
+        int get(long key) {
+            int mask = keys.length - 1;
+            for (int i = slot(key, mask); keys[i] != 0; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+            }
+            return 0;
+        }
+
+        // Only called for keys that are not present yet
+        void put(long key, int value) {
+            if ((size + 1) * 2 > keys.length) {
+                long[] oldKeys = keys;
+                int[] oldValues = values;
+                keys = new long[oldKeys.length * 2];
+                values = new int[oldKeys.length * 2];
+                for (int i = 0; i < oldKeys.length; i++) {
+                    if (oldKeys[i] != 0) {
+                        insert(oldKeys[i], oldValues[i]);
+                    }
+                }
+            }
+            insert(key, value);
+            size++;
+        }
+
+        private void insert(long key, int value) {
+            int mask = keys.length - 1;
+            int i = slot(key, mask);
+            while (keys[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        // Student and session ids are dense, so mix the bits before masking
+        private static int slot(long key, int mask) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+}
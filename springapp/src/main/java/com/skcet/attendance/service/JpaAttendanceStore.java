@@ -0,0 +1,143 @@
+package com.skcet.attendance.service;
+
+import com.skcet.attendance.Entity.Attendance;
+import com.skcet.attendance.Entity.ClassDayAttendanceCounter;
+import com.skcet.attendance.Entity.StudentAttendanceCounter;
+import com.skcet.attendance.Repo.AttendanceCounterJdbcRepository;
+import com.skcet.attendance.Repo.AttendanceJdbcRepository;
+import com.skcet.attendance.Repo.AttendanceJdbcRepository.UpsertResult;
+import com.skcet.attendance.Repo.AttendanceRepository;
+import com.skcet.attendance.Repo.ClassDayAttendanceCounterRepository;
+import com.skcet.attendance.Repo.ClassSessionJdbcRepository;
+import com.skcet.attendance.Repo.StudentAttendanceCounterRepository;
+import com.skcet.attendance.dto.ClassAttendanceRow;
+import com.skcet.attendance.dto.StudentAttendanceReportRow;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// MySQL through the JPA repositories and the JDBC upsert/counter repositories (attendance.store=jpa, the default).
+// Spring Data query methods run without a transaction of their own, so the reads open a read-only one
+// here; that is what routes them to the replica when one is configured.
+@Component
+@ConditionalOnProperty(name = "attendance.store", havingValue = "jpa", matchIfMissing = true)
+public class JpaAttendanceStore implements AttendanceStore {
+
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+
+    private final AttendanceRepository repo;
+    private final AttendanceJdbcRepository jdbcRepo;
+    private final ClassSessionJdbcRepository sessions;
+    private final StudentAttendanceCounterRepository studentCounters;
+    private final ClassDayAttendanceCounterRepository classDayCounters;
+    private final AttendanceCounterJdbcRepository counterJdbc;
+
+    public JpaAttendanceStore(AttendanceRepository repo, AttendanceJdbcRepository jdbcRepo,
+                              ClassSessionJdbcRepository sessions,
+                              StudentAttendanceCounterRepository studentCounters,
+                              ClassDayAttendanceCounterRepository classDayCounters,
+                              AttendanceCounterJdbcRepository counterJdbc) {
+        this.repo = repo;
+        this.jdbcRepo = jdbcRepo;
+        this.sessions = sessions;
+        this.studentCounters = studentCounters;
+        this.classDayCounters = classDayCounters;
+        this.counterJdbc = counterJdbc;
+    }
+
+    @Override
+    public long findOrCreateSession(String className, LocalDate sessionDate, short period,
+                                    String staffId, String staffName) {
+        return sessions.findOrCreate(className, sessionDate, period, staffId, staffName);
+    }
+
+    @Override
+    public UpsertResult upsert(Attendance row) {
+        return retryOnLockConflict(() -> jdbcRepo.upsert(row));
+    }
+
+    // One connection and one transaction
+    @Override
+    public List<UpsertResult> upsertAll(List<Attendance> rows) {
+        return retryOnLockConflict(() -> jdbcRepo.upsertAll(rows));
+    }
+
+    // The upsert transaction rolled back as a deadlock or lock-wait victim (e.g. against a counter rebuild); run it again
+    private static <T> T retryOnLockConflict(Supplier<T> write) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return write.get();
+            } catch (ConcurrencyFailureException e) {
+                if (attempt == MAX_WRITE_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Counts summarizeStudent(String studentEmail, LocalDate from, LocalDate to) {
+        AttendanceRepository.StudentSummary summary = repo.summarizeByStudentEmail(studentEmail, from, to);
+        return new Counts(summary.getPresent(), summary.getTotal() - summary.getPresent());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ClassAttendanceRow> findClassSessionPage(String className, LocalDate sessionDate, Short period,
+                                                         long afterId, Integer limit) {
+        Pageable page = limit != null ? PageRequest.of(0, limit) : Pageable.unpaged();
+        return repo.findClassSessionPage(className, sessionDate, period, afterId, page);
+    }
+
+    // One counter row per class, no scan of attendance history
+    @Override
+    @Transactional(readOnly = true)
+    public Counts studentTermCounts(String studentEmail, String className, String term) {
+        if (className != null) {
+            Optional<StudentAttendanceCounter> counter =
+                    studentCounters.findById(new StudentAttendanceCounter.Key(studentEmail, className, term));
+            return counter.map(c -> new Counts(c.getPresentCount(), c.getAbsentCount())).orElse(Counts.NONE);
+        }
+        long present = 0;
+        long absent = 0;
+        for (StudentAttendanceCounter counter : studentCounters.findByStudentEmailAndTerm(studentEmail, term)) {
+            present += counter.getPresentCount();
+            absent += counter.getAbsentCount();
+        }
+        return new Counts(present, absent);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Counts classDayCounts(String className, LocalDate sessionDate) {
+        return classDayCounters.findById(new ClassDayAttendanceCounter.Key(className, sessionDate))
+                .map(c -> new Counts(c.getPresentCount(), c.getAbsentCount()))
+                .orElse(Counts.NONE);
+    }
+
+    @Override
+    public long rebuildCounters() {
+        return counterJdbc.rebuild();
+    }
+
+    // Streamed from the MySQL cursor; needs the caller's transaction
+    @Override
+    public Stream<ClassAttendanceRow> streamClassRange(String className, LocalDate from, LocalDate to) {
+        return repo.streamClassRange(className, from, to);
+    }
+
+    @Override
+    public Stream<StudentAttendanceReportRow> streamClassReport(List<String> classNames, LocalDate from, LocalDate to) {
+        return repo.streamClassReport(classNames, from, to);
+    }
+}
@@ -0,0 +1,169 @@
+package com.skcet.attendance.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Collects items submitted by concurrent callers into batches and hands each batch
+ * to a single flush function on a dedicated thread.
+ *
+ * A batch is closed when it reaches {@code maxBatchSize} items or {@code lingerMs}
+ * after its first item arrived, whichever comes first. The flush function returns
+ * one result per item, in order (a null element is a result); every caller's future
+ * completes only after the flush of its batch returned, or fails with the flush's
+ * exception. Items the flush returned no result for fail with an
+ * {@link IllegalStateException}.
+ */
+@Slf4j
+public class MicroBatcher<T, R> implements AutoCloseable {
+
+    private static final long IDLE_POLL_MS = 100;
+
+    private final String name;
+    private final int maxBatchSize;
+    private final long lingerNanos;
+    private final Function<List<T>, List<R>> flush;
+    private final BlockingQueue<Pending<T, R>> queue;
+    private final Thread flusher;
+
+    private volatile boolean closed;
+
+    public MicroBatcher(String name, int maxBatchSize, long lingerMs, int capacity,
+                        Function<List<T>, List<R>> flush) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be at least 1");
+        }
+        this.name = name;
+        this.maxBatchSize = maxBatchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, lingerMs));
+        this.flush = flush;
+        this.queue = new LinkedBlockingQueue<>(Math.max(capacity, maxBatchSize));
+        this.flusher = new Thread(this::run, name + "-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Queues an item for the next batch. Blocks while the queue is full, which pushes
+     * back on callers instead of growing without bound when the flush falls behind.
+     */
+    public CompletableFuture<R> submit(T item) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        if (closed) {
+            future.completeExceptionally(new IllegalStateException(name + " is closed"));
+            return future;
+        }
+        try {
+            queue.put(new Pending<>(item, future));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    // Stops accepting items, flushes whatever is queued and waits for the flusher to finish
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Items that raced with close() or were left behind by a stuck flush
+        Pending<T, R> pending;
+        while (!flusher.isAlive() && (pending = queue.poll()) != null) {
+            pending.future.completeExceptionally(new IllegalStateException(name + " is closed"));
+        }
+    }
+
+    private void run() {
+        List<Pending<T, R>> batch = new ArrayList<>(maxBatchSize);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                // Short poll instead of take() so close() is noticed without interrupting a flush
+                Pending<T, R> first = closed ? queue.poll() : queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                fill(batch);
+            } catch (InterruptedException e) {
+                // Not expected; flush what we have, drain the rest and stop
+                closed = true;
+                log.warn("{}: flusher interrupted, closing", name);
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    // Tops the batch up until it is full or the linger time after its first item has passed
+    private void fill(List<Pending<T, R>> batch) throws InterruptedException {
+        queue.drainTo(batch, maxBatchSize - batch.size());
+        long deadline = System.nanoTime() + lingerNanos;
+        while (batch.size() < maxBatchSize && !closed) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            Pending<T, R> next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+            queue.drainTo(batch, maxBatchSize - batch.size());
+        }
+    }
+
+    private void flush(List<Pending<T, R>> batch) {
+        List<T> items = new ArrayList<>(batch.size());
+        for (Pending<T, R> pending : batch) {
+            items.add(pending.item);
+        }
+        try {
+            List<R> results = flush.apply(items);
+            int resultCount = results == null ? 0 : results.size();
+            if (resultCount < batch.size()) {
+                log.error("{}: flush returned {} result(s) for {} item(s)", name, resultCount, batch.size());
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                if (i < resultCount) {
+                    batch.get(i).future.complete(results.get(i));
+                } else {
+                    batch.get(i).future.completeExceptionally(new IllegalStateException(name + ": flush returned "
+                            + resultCount + " result(s) for " + batch.size() + " item(s)"));
+                }
+            }
+        } catch (Throwable e) {
+            log.error("{}: flush of {} item(s) failed: {}", name, batch.size(), e.getMessage());
+            for (Pending<T, R> pending : batch) {
+                pending.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static final class Pending<T, R> {
+        private final T item;
+        private final CompletableFuture<R> future;
+
+        private Pending(T item, CompletableFuture<R> future) {
+            this.item = item;
+            this.future = future;
+        }
+    }
+}
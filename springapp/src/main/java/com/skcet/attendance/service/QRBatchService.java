@@ -0,0 +1,139 @@
+package com.skcet.attendance.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.skcet.attendance.dto.AttendanceInfo;
+import com.skcet.attendance.dto.QRBatchEntry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pre-generates QR tokens for a whole timetable in one request.
+ *
+ * Entries are signed in parallel chunks on a dedicated pool of
+ * {@code qr.batch.threads} threads (not the common pool, so a large timetable does
+ * not starve other parallel work) and each chunk is written to the response as
+ * soon as it is ready. A token becomes valid at its session's start time
+ * (sessionDate + startTime), so a morning job can prepare every period of the day.
+ */
+@Service
+@Slf4j
+public class QRBatchService {
+
+    private static final int CHUNK_SIZE = 256;
+
+    private final TokenService tokenService;
+    private final ObjectMapper objectMapper;
+    private final int threads;
+    // Bounded queue; when it is full the request thread signs the slice itself
+    private final ThreadPoolExecutor signers;
+
+    public QRBatchService(TokenService tokenService, ObjectMapper objectMapper,
+                          @Value("${qr.batch.threads:0}") int threads) {
+        this.tokenService = tokenService;
+        this.objectMapper = objectMapper;
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.signers = new ThreadPoolExecutor(this.threads, this.threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(this.threads * 4), r -> {
+                    Thread t = new Thread(r, "qr-batch");
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        this.signers.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        signers.shutdownNow();
+    }
+
+    // Writes a JSON array of QRBatchEntry, one per timetable entry, in request order
+    public void writeBatch(List<AttendanceInfo> timetable, OutputStream out) throws IOException {
+        long now = System.currentTimeMillis();
+        long ttl = tokenService.getQrTtlMs();
+
+        ObjectWriter writer = objectMapper.writerFor(QRBatchEntry.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            json.writeStartArray();
+            QRBatchEntry[] chunk = new QRBatchEntry[Math.min(CHUNK_SIZE, timetable.size())];
+
+            for (int start = 0; start < timetable.size(); start += CHUNK_SIZE) {
+                int offset = start;
+                int size = Math.min(CHUNK_SIZE, timetable.size() - start);
+
+                int slice = (size + threads - 1) / threads;
+                List<Future<?>> slices = new ArrayList<>(threads);
+                for (int from = 0; from < size; from += slice) {
+                    int first = from;
+                    int last = Math.min(size, from + slice);
+                    slices.add(signers.submit(() -> {
+                        for (int i = first; i < last; i++) {
+                            AttendanceInfo info = timetable.get(offset + i);
+                            long validFrom = Math.max(now, sessionStart(info, now));
+                            String token = tokenService.generateToken(info, validFrom);
+                            chunk[i] = new QRBatchEntry(info.getClassName(), info.getSessionDate(),
+                                    info.getPeriod(), token, validFrom, validFrom + ttl);
+                        }
+                    }));
+                }
+                await(slices);
+
+                for (int i = 0; i < size; i++) {
+                    writer.writeValue(json, chunk[i]);
+                }
+                json.flush();
+            }
+            json.writeEndArray();
+        }
+        log.info("Pre-generated {} QR tokens", timetable.size());
+    }
+
+    private static void await(List<Future<?>> slices) throws IOException {
+        try {
+            for (Future<?> slice : slices) {
+                slice.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("QR batch interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("QR batch signing failed", e.getCause());
+        }
+    }
+
+    // Session start in server time; falls back to now when the date or time is missing
+    private static long sessionStart(AttendanceInfo info, long now) {
+        if (info.getSessionDate() == null || info.getStartTime() == null) {
+            return now;
+        }
+        try {
+            return LocalDate.parse(info.getSessionDate())
+                    .atTime(LocalTime.parse(info.getStartTime()))
+                    .atZone(ZoneId.systemDefault())
+                    .toInstant()
+                    .toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return now;
+        }
+    }
+}
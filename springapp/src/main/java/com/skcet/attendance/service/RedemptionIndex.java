@@ -0,0 +1,189 @@
+package com.skcet.attendance.service;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Remembers which (token randomId, student email) pairs have already been redeemed.
+ * It is per instance, a fast pre-check only: the attendance write is what makes a
+ * redemption single-use across instances.
+ *
+ * Each pair is folded into a 64-bit hash and kept in one of 64 open-addressing
+ * shards (linear probing, a lock per shard). An entry only has to outlive the token
+ * it came from, so it carries that token's expiry in seconds and expired slots are reused on
+ * insert and dropped whenever a shard is rehashed. At 12 bytes per slot and a load
+ * factor of at most 0.5, a million redemptions fit in roughly 24 MB.
+ */
+@Component
+public class RedemptionIndex {
+
+    private static final int SHARD_BITS = 6;
+    private static final int SHARD_COUNT = 1 << SHARD_BITS;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Shard[] shards = new Shard[SHARD_COUNT];
+    private final long epochMs = System.currentTimeMillis();
+
+    public RedemptionIndex() {
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            shards[i] = new Shard();
+        }
+    }
+
+    /**
+     * Records the redemption of a token by a student.
+     *
+     * @param expiresAt when the token stops validating ({@link TokenService.AttendancePayload#getExpiresAt()})
+     * @return true if this is the first redemption, false if it was already redeemed
+     */
+    public boolean tryRedeem(String randomId, String studentEmail, long expiresAt) {
+        long key = hash(randomId, studentEmail);
+        return shardFor(key).insert(key, toSeconds(expiresAt) + 1, toSeconds(System.currentTimeMillis()));
+    }
+
+    public boolean isRedeemed(String randomId, String studentEmail) {
+        long key = hash(randomId, studentEmail);
+        return shardFor(key).contains(key, toSeconds(System.currentTimeMillis()));
+    }
+
+    // Undo a redemption whose attendance write failed so the student can retry
+    public void release(String randomId, String studentEmail) {
+        long key = hash(randomId, studentEmail);
+        shardFor(key).expire(key);
+    }
+
+    // Slots in use, including expired entries that have not been purged by a rehash yet
+    public int size() {
+        int size = 0;
+        for (Shard shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    private Shard shardFor(long key) {
+        return shards[(int) (key >>> (64 - SHARD_BITS))];
+    }
+
+    private int toSeconds(long timeMs) {
+        return (int) ((timeMs - epochMs) / 1000);
+    }
+
+    // FNV-1a over both strings followed by a murmur3 finalizer; 0 marks an empty slot
+    static long hash(String randomId, String studentEmail) {
+        long h = 0xcbf29ce484222325L;
+        h = fnv(h, randomId);
+        h = (h ^ 0x1F) * 0x100000001b3L;
+        h = fnv(h, studentEmail == null ? "" : studentEmail.toLowerCase());
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+
+    private static long fnv(long h, String value) {
+        if (value == null) {
+            return h;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            h = (h ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        return h;
+    }
+
+    private static final class Shard {
+        private long[] keys = new long[INITIAL_CAPACITY];
+        private int[] expiries = new int[INITIAL_CAPACITY];
+        private int used;   // occupied slots, including expired ones not yet purged
+
+        synchronized boolean insert(long key, int expiresAt, int now) {
+            int mask = keys.length - 1;
+            int reusable = -1;
+            for (int i = (int) key & mask; ; i = (i + 1) & mask) {
+                long k = keys[i];
+                if (k == 0) {
+                    break;
+                }
+                boolean expired = expiries[i] <= now;
+                if (k == key && !expired) {
+                    return false;
+                }
+                if (expired && reusable == -1) {
+                    reusable = i;
+                }
+            }
+
+            if (reusable != -1) {
+                keys[reusable] = key;
+                expiries[reusable] = expiresAt;
+                return true;
+            }
+
+            if ((used + 1) * 2 > keys.length) {
+                rehash(now);
+                mask = keys.length - 1;
+            }
+            int i = (int) key & mask;
+            while (keys[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            expiries[i] = expiresAt;
+            used++;
+            return true;
+        }
+
+        synchronized boolean contains(long key, int now) {
+            int mask = keys.length - 1;
+            for (int i = (int) key & mask; keys[i] != 0; i = (i + 1) & mask) {
+                if (keys[i] == key && expiries[i] > now) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        synchronized void expire(long key) {
+            int mask = keys.length - 1;
+            for (int i = (int) key & mask; keys[i] != 0; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    expiries[i] = 0;
+                }
+            }
+        }
+
+        synchronized int size() {
+            return used;
+        }
+
+        // Rebuild without expired slots, doubling only if live entries still fill a quarter of the table
+        private void rehash(int now) {
+            long[] oldKeys = keys;
+            int[] oldExpiries = expiries;
+
+            int count = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0 && oldExpiries[i] > now) {
+                    count++;
+                }
+            }
+            int capacity = count * 4 >= oldKeys.length ? oldKeys.length * 2 : oldKeys.length;
+
+            keys = new long[capacity];
+            expiries = new int[capacity];
+            int mask = capacity - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0 && oldExpiries[i] > now) {
+                    int j = (int) oldKeys[i] & mask;
+                    while (keys[j] != 0) {
+                        j = (j + 1) & mask;
+                    }
+                    keys[j] = oldKeys[i];
+                    expiries[j] = oldExpiries[i];
+                }
+            }
+            used = count;
+        }
+    }
+}
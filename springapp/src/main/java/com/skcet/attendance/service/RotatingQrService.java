@@ -0,0 +1,176 @@
+package com.skcet.attendance.service;
+
+import com.skcet.attendance.dto.AttendanceInfo;
+import com.skcet.attendance.dto.QRGenerateResponse;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.security.SecureRandom;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Streams a fresh QR token to a staff screen every time window.
+ *
+ * Each stream gets a random seed and a prebuilt token template; a rotation only
+ * stamps the window counter and signs it (see {@link TokenService#rotatingToken}).
+ * Nothing is stored per token: validation recomputes the current window and accepts
+ * that one and the previous one.
+ *
+ * The shared scheduler only fires rotations; each send runs on the sender pool, at
+ * most one per stream at a time, so a slow client skips windows instead of holding
+ * a scheduler thread. The sender pool is sized for {@code qr.rotating.max-streams}
+ * and streams beyond that are refused.
+ */
+@Service
+@Slf4j
+public class RotatingQrService {
+
+    private static final int MIN_WINDOW_SECONDS = 2;
+    private static final int MAX_WINDOW_SECONDS = 300;
+
+    private final TokenService tokenService;
+    private final int defaultWindowSeconds;
+    private final int maxStreams;
+    private final SecureRandom seeds = new SecureRandom();
+    private final AtomicInteger openStreams = new AtomicInteger();
+
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2, r -> {
+        Thread t = new Thread(r, "rotating-qr");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Blocking emitter sends; at most one in flight per stream, so maxStreams threads always suffice
+    private final ThreadPoolExecutor sender;
+
+    public RotatingQrService(TokenService tokenService,
+                             @Value("${qr.rotating.window.seconds:10}") int defaultWindowSeconds,
+                             @Value("${qr.rotating.max-streams:500}") int maxStreams) {
+        this.tokenService = tokenService;
+        this.defaultWindowSeconds = defaultWindowSeconds;
+        this.maxStreams = maxStreams;
+        this.sender = new ThreadPoolExecutor(0, maxStreams, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+            Thread t = new Thread(r, "rotating-qr-send");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // Throws IllegalStateException when qr.rotating.max-streams streams are already open
+    public SseEmitter openStream(AttendanceInfo info, Integer windowSeconds) {
+        if (openStreams.incrementAndGet() > maxStreams) {
+            openStreams.decrementAndGet();
+            throw new IllegalStateException("Too many rotating QR streams open");
+        }
+        int window = clamp(windowSeconds != null ? windowSeconds : defaultWindowSeconds);
+        long windowMs = window * 1000L;
+        long streamStart = System.currentTimeMillis();
+
+        byte[] template = tokenService.rotatingTemplate(
+                seeds.nextLong(), window, streamStart,
+                String.valueOf(info.getStaffId()),
+                info.getStaffName(),
+                info.getSessionDate(),
+                info.getPeriod(),
+                info.getStartTime(),
+                info.getEndTime(),
+                String.valueOf(info.getCourseId()),
+                info.getCourseName(),
+                info.getLocation(),
+                info.getAttendanceType(),
+                info.getClassName()
+        );
+
+        long maxDurationMs = tokenService.getRotatingMaxDurationMs();
+        SseEmitter emitter = new SseEmitter(maxDurationMs);
+        AtomicReference<ScheduledFuture<?>> task = new AtomicReference<>();
+        AtomicBoolean closed = new AtomicBoolean();
+        AtomicBoolean sending = new AtomicBoolean();
+        Runnable cancel = () -> {
+            if (closed.compareAndSet(false, true)) {
+                openStreams.decrementAndGet();
+            }
+            ScheduledFuture<?> future = task.get();
+            if (future != null) {
+                future.cancel(false);
+            }
+        };
+
+        Runnable send = () -> {
+            long now = System.currentTimeMillis();
+            try {
+                if (now - streamStart >= maxDurationMs) {
+                    cancel.run();
+                    emitter.complete();
+                    return;
+                }
+                long currentWindow = now / windowMs;
+                String token = tokenService.rotatingToken(template, currentWindow);
+                // Valid for the rest of this window and the whole next one
+                long expiresAt = (currentWindow + 2) * windowMs;
+                emitter.send(SseEmitter.event().name("token").data(new QRGenerateResponse(token, expiresAt)));
+            } catch (Exception e) {
+                // Client went away (or the emitter already completed); stop rotating
+                log.debug("Rotating QR stream closed: {}", e.getMessage());
+                cancel.run();
+                emitter.completeWithError(e);
+            } finally {
+                sending.set(false);
+            }
+        };
+
+        // Runs on the scheduler: hands the send off, skipping this window if the last one is still going
+        Runnable rotate = () -> {
+            if (closed.get() || !sending.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                sender.execute(send);
+            } catch (RejectedExecutionException e) {
+                sending.set(false);
+            }
+        };
+
+        emitter.onCompletion(cancel);
+        emitter.onTimeout(cancel);
+        emitter.onError(e -> cancel.run());
+
+        // First token right away, then on every window boundary
+        long delayToNextWindow = windowMs - (streamStart % windowMs);
+        scheduler.execute(rotate);
+        task.set(scheduler.scheduleAtFixedRate(rotate, delayToNextWindow, windowMs, TimeUnit.MILLISECONDS));
+        if (closed.get()) {
+            // Closed before the task was registered
+            cancel.run();
+        }
+
+        log.info("Rotating QR stream opened for class {} (window {}s)", info.getClassName(), window);
+        return emitter;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        sender.shutdownNow();
+    }
+
+    public int getOpenStreams() {
+        return openStreams.get();
+    }
+
+    private static int clamp(int windowSeconds) {
+        return Math.max(MIN_WINDOW_SECONDS, Math.min(MAX_WINDOW_SECONDS, windowSeconds));
+    }
+}
@@ -0,0 +1,177 @@
+package com.skcet.attendance.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Scan sessions shared by the QR and face endpoints.
+ *
+ * Sessions live in a {@link ConcurrentHashMap} and are expired by a hashed wheel:
+ * every session has the same TTL ({@code qr.ttl.ms}), so its expiry always falls
+ * within one rotation and a tick only has to drain a single slot. When the store
+ * reaches {@code scan.session.max-entries} the sessions closest to expiry are
+ * evicted first.
+ */
+@Component
+@Slf4j
+public class ScanSessionStore {
+
+    private static final int WHEEL_SIZE = 64;
+
+    private final ConcurrentHashMap<String, ScanSession> sessions = new ConcurrentHashMap<>();
+    private final Queue<String>[] wheel;
+    private final long ttlMs;
+    private final long tickMs;
+    private final int maxEntries;
+
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private final ScheduledExecutorService ticker;
+    private volatile long lastTick;
+
+    @SuppressWarnings("unchecked")
+    public ScanSessionStore(@Value("${qr.ttl.ms}") long ttlMs,
+                            @Value("${scan.session.max-entries:100000}") int maxEntries) {
+        this.ttlMs = ttlMs;
+        this.maxEntries = maxEntries;
+        // TTL spans at most WHEEL_SIZE - 2 ticks, so a slot never holds entries from two rotations
+        // even when the ticker runs a tick late
+        this.tickMs = Math.max(1, (ttlMs + WHEEL_SIZE - 3) / (WHEEL_SIZE - 2));
+        this.wheel = new Queue[WHEEL_SIZE];
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.lastTick = System.currentTimeMillis() / tickMs;
+
+        this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "scan-session-wheel");
+            t.setDaemon(true);
+            return t;
+        });
+        ticker.scheduleAtFixedRate(this::advance, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void put(String sessionId, String email, TokenService.AttendancePayload payload) {
+        long expiresAt = System.currentTimeMillis() + ttlMs;
+        // Re-putting an id replaces its session and needs no room
+        while (!sessions.containsKey(sessionId) && sessions.size() >= maxEntries && evictOne()) {
+            // keep evicting until there is room
+        }
+        sessions.put(sessionId, new ScanSession(email, payload, expiresAt));
+        wheel[slot(expiresAt / tickMs)].add(sessionId);
+    }
+
+    // Returns the live session or null if it is unknown or has expired
+    public ScanSession get(String sessionId) {
+        ScanSession session = sessions.get(sessionId);
+        if (session == null) {
+            return null;
+        }
+        if (session.isExpired(System.currentTimeMillis())) {
+            if (sessions.remove(sessionId, session)) {
+                expirations.increment();
+            }
+            return null;
+        }
+        return session;
+    }
+
+    public ScanSession remove(String sessionId) {
+        ScanSession session = sessions.remove(sessionId);
+        return session == null || session.isExpired(System.currentTimeMillis()) ? null : session;
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    public long getExpirationCount() {
+        return expirations.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+    }
+
+    // Drain every slot whose tick has fully elapsed since the last run
+    private void advance() {
+        try {
+            long now = System.currentTimeMillis();
+            long currentTick = now / tickMs;
+            for (long tick = Math.max(lastTick, currentTick - WHEEL_SIZE); tick < currentTick; tick++) {
+                Queue<String> bucket = wheel[slot(tick)];
+                String sessionId;
+                while ((sessionId = bucket.poll()) != null) {
+                    ScanSession session = sessions.get(sessionId);
+                    // A live session here was re-put under the same id and is queued in a later slot
+                    if (session != null && session.isExpired(now) && sessions.remove(sessionId, session)) {
+                        expirations.increment();
+                    }
+                }
+            }
+            lastTick = currentTick;
+        } catch (Exception e) {
+            log.error("Scan session expiry tick failed: {}", e.getMessage());
+        }
+    }
+
+    // Evict the session closest to expiry, scanning slots from the current tick forward
+    private boolean evictOne() {
+        long tick = lastTick;
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            int slot = slot(tick + i);
+            Queue<String> bucket = wheel[slot];
+            String sessionId;
+            while ((sessionId = bucket.poll()) != null) {
+                ScanSession session = sessions.get(sessionId);
+                // Skip the stale entry of a session re-put under the same id; its live entry is in a later slot
+                if (session != null && slot(session.getExpiresAt() / tickMs) == slot
+                        && sessions.remove(sessionId, session)) {
+                    evictions.increment();
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static int slot(long tick) {
+        return (int) (tick & (WHEEL_SIZE - 1));
+    }
+
+    public static class ScanSession {
+        private final String email;
+        private final TokenService.AttendancePayload payload;
+        private final long expiresAt;
+
+        public ScanSession(String email, TokenService.AttendancePayload payload, long expiresAt) {
+            this.email = email;
+            this.payload = payload;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getEmail() { return email; }
+        public TokenService.AttendancePayload getPayload() { return payload; }
+        public long getExpiresAt() { return expiresAt; }
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
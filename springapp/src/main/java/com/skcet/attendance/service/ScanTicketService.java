@@ -0,0 +1,175 @@
+package com.skcet.attendance.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Base64;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Issues and resolves the session handed out by /api/qr/scan.
+ *
+ * By default the session is a stateless ticket: the scanning student's email and
+ * the validated {@link TokenService.AttendancePayload} signed with the QR HMAC key,
+ * so any instance can verify it without shared state. With
+ * {@code scan.session.stateless=false} sessions fall back to random ids held in the
+ * local {@link ScanSessionStore}; ids from that store are always accepted so a
+ * rolling deploy does not break sessions in flight.
+ *
+ * A ticket cannot be recalled, so {@link #close} puts its id on a denylist that
+ * {@link #resolve} checks, kept until the ticket would have expired anyway. The
+ * denylist is per instance: on another instance a closed ticket still resolves
+ * until it expires, so keep {@code scan.ticket.ttl.ms} short (one face check, not
+ * the QR lifetime). Attendance itself stays single-use per token and student
+ * because its Firestore document id is derived from the two and only ever created
+ * (see {@link FirestoreService#saveAttendance}); the per-instance
+ * {@link RedemptionIndex} is just a fast pre-check in front of that write.
+ */
+@Service
+@Slf4j
+public class ScanTicketService {
+
+    // Ticket envelope: same header/signature layout as v2 QR tokens, different version byte
+    // [0] version | [1] key id | [2..9] expiresAt | [10..17] ticket id | [18..49] HMAC
+    // [50..57] token timestamp | [58..65] token redeemable-until | strings
+    private static final byte TICKET_VERSION = 0x10;
+    private static final int TOKEN_TIMESTAMP_OFFSET = TokenService.PAYLOAD_OFFSET;
+    private static final int TOKEN_EXPIRES_OFFSET = TOKEN_TIMESTAMP_OFFSET + 8;
+    private static final int STRINGS_OFFSET = TOKEN_EXPIRES_OFFSET + 8;
+
+    private final TokenService tokenService;
+    private final ScanSessionStore sessionStore;
+    private final long ticketTtlMs;
+    private final boolean stateless;
+    // Closed ticket ids, each dropped once its ticket expires
+    private final RedemptionIndex closedTickets = new RedemptionIndex();
+
+    public ScanTicketService(TokenService tokenService,
+                             ScanSessionStore sessionStore,
+                             @Value("${scan.ticket.ttl.ms:60000}") long ticketTtlMs,
+                             @Value("${scan.session.stateless:true}") boolean stateless) {
+        this.tokenService = tokenService;
+        this.sessionStore = sessionStore;
+        this.ticketTtlMs = ticketTtlMs;
+        this.stateless = stateless;
+    }
+
+    // Opens a scan session for a validated QR token and returns its id
+    public String open(String email, TokenService.AttendancePayload payload) {
+        if (!stateless) {
+            String sessionId = tokenService.generateSessionId();
+            sessionStore.put(sessionId, email, payload);
+            return sessionId;
+        }
+        return issueTicket(email, payload);
+    }
+
+    // Returns the session behind a ticket or a stored session id, or null if invalid/expired
+    public ScanSessionStore.ScanSession resolve(String sessionId) {
+        if (sessionId == null || sessionId.isEmpty()) {
+            return null;
+        }
+        byte[] ticket = decodeTicket(sessionId);
+        if (ticket == null) {
+            return sessionStore.get(sessionId);
+        }
+        return closedTickets.isRedeemed(ticketId(ticket), null) ? null : readTicket(ticket);
+    }
+
+    // Ends a session: stored ids are removed, tickets are denied on this instance until they expire
+    public void close(String sessionId) {
+        if (sessionId == null) {
+            return;
+        }
+        byte[] ticket = decodeTicket(sessionId);
+        if (ticket != null) {
+            closedTickets.tryRedeem(ticketId(ticket), null, CompactCodec.getLong(ticket, 2));
+        } else {
+            sessionStore.remove(sessionId);
+        }
+    }
+
+    private String issueTicket(String email, TokenService.AttendancePayload payload) {
+        try {
+            byte[][] fields = {
+                    CompactCodec.utf8(email), CompactCodec.utf8(payload.getRandomId()),
+                    CompactCodec.utf8(payload.getStaffId()), CompactCodec.utf8(payload.getStaffName()),
+                    CompactCodec.utf8(payload.getSessionDate()), CompactCodec.utf8(payload.getPeriod()),
+                    CompactCodec.utf8(payload.getStartTime()), CompactCodec.utf8(payload.getEndTime()),
+                    CompactCodec.utf8(payload.getCourseId()), CompactCodec.utf8(payload.getCourseName()),
+                    CompactCodec.utf8(payload.getLocation()), CompactCodec.utf8(payload.getAttendanceType()),
+                    CompactCodec.utf8(payload.getClassName())
+            };
+
+            int length = STRINGS_OFFSET;
+            for (byte[] field : fields) {
+                length += CompactCodec.sizeOf(field);
+            }
+
+            byte[] buf = new byte[length];
+            buf[0] = TICKET_VERSION;
+            CompactCodec.putLong(buf, 2, System.currentTimeMillis() + ticketTtlMs);
+            CompactCodec.putLong(buf, 10, ThreadLocalRandom.current().nextLong());
+            CompactCodec.putLong(buf, TOKEN_TIMESTAMP_OFFSET, payload.getTimestamp());
+            CompactCodec.putLong(buf, TOKEN_EXPIRES_OFFSET, payload.getExpiresAt());
+
+            int pos = STRINGS_OFFSET;
+            for (byte[] field : fields) {
+                pos = CompactCodec.putString(buf, pos, field);
+            }
+
+            tokenService.sign(buf);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(buf);
+
+        } catch (Exception e) {
+            log.error("Failed to issue scan ticket: {}", e.getMessage());
+            throw new RuntimeException("Scan ticket generation failed", e);
+        }
+    }
+
+    // The ticket bytes if this is a signed, unexpired ticket, otherwise null
+    private byte[] decodeTicket(String ticket) {
+        try {
+            byte[] buf = Base64.getUrlDecoder().decode(ticket);
+            if (buf.length < STRINGS_OFFSET || buf[0] != TICKET_VERSION) {
+                return null;
+            }
+
+            long expiresAt = CompactCodec.getLong(buf, 2);
+            if (System.currentTimeMillis() >= expiresAt || !tokenService.verify(buf)) {
+                return null;
+            }
+            return buf;
+
+        } catch (Exception e) {
+            // Not a ticket (e.g. a stored session id); the caller falls back to the store
+            return null;
+        }
+    }
+
+    private static String ticketId(byte[] buf) {
+        return Long.toHexString(CompactCodec.getLong(buf, 10));
+    }
+
+    private ScanSessionStore.ScanSession readTicket(byte[] buf) {
+        try {
+            long expiresAt = CompactCodec.getLong(buf, 2);
+            long tokenTimestamp = CompactCodec.getLong(buf, TOKEN_TIMESTAMP_OFFSET);
+            CompactCodec.Reader reader = new CompactCodec.Reader(buf, STRINGS_OFFSET, buf.length);
+            String email = reader.readString();
+            TokenService.AttendancePayload payload = new TokenService.AttendancePayload(
+                    tokenTimestamp, reader.readString(),
+                    reader.readString(), reader.readString(), reader.readString(), reader.readString(),
+                    reader.readString(), reader.readString(), reader.readString(), reader.readString(),
+                    reader.readString(), reader.readString(), reader.readString()
+            );
+            payload.setExpiresAt(CompactCodec.getLong(buf, TOKEN_EXPIRES_OFFSET));
+            return new ScanSessionStore.ScanSession(email, payload, expiresAt);
+
+        } catch (Exception e) {
+            // Signed but malformed; treat as invalid
+            return null;
+        }
+    }
+}
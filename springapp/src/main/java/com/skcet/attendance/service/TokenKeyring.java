@@ -0,0 +1,297 @@
+package com.skcet.attendance.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HMAC keys for QR tokens and scan tickets, addressed by the one-byte key id in
+ * every binary token header.
+ *
+ * Keys come from {@code qr.keys} ("id:secret,id:secret") and new tokens are signed
+ * with {@code qr.active-key-id}. At least one key must be configured; there is no
+ * built-in key, so startup fails without one.
+ *
+ * JSON tokens from before the binary format ({@code eyJ...}) were signed with a secret
+ * that is in the repository history. They are only accepted with
+ * {@code qr.legacy.enabled=true}, the old secret in {@code qr.legacy.secret} and an end
+ * date in {@code qr.legacy.accept-until}; that secret only ever verifies legacy JSON
+ * tokens and is never part of the ring, so it cannot sign or verify binary tokens.
+ *
+ * With {@code qr.keys.file} set, the same two properties are read from that file
+ * instead, re-read every {@code qr.keys.refresh-ms} when it has changed and on
+ * {@code POST /api/qr/keys/reload}, so keys rotate without a restart. To rotate, add
+ * the new key and make it active, and drop the old one only once nothing it signed
+ * can still validate: static QR tokens live {@code qr.ttl.ms}, pre-generated tokens
+ * until {@code qr.ttl.ms} after their session starts, rotating tokens two windows
+ * (up to 10 minutes) and scan tickets {@code scan.ticket.ttl.ms}.
+ *
+ * Lookups are an array index into an immutable snapshot; every key has its own
+ * thread-local, already initialized {@link Mac}, so validation is one lookup and
+ * one {@code doFinal}.
+ */
+@Component
+@Slf4j
+public class TokenKeyring {
+
+    private static final String HMAC_SHA256 = "HmacSHA256";
+
+    private volatile Snapshot snapshot;
+
+    private final Path keysFile;
+    private final long refreshMs;
+    private long keysFileModified;
+    private ScheduledExecutorService refresher;
+
+    // Verify-only key for legacy JSON tokens, or null; accepted until legacyUntilMs
+    private final Key legacyKey;
+    private final long legacyUntilMs;
+
+    public TokenKeyring(String keys, int activeKeyId) {
+        this(keys, activeKeyId, "", 0);
+    }
+
+    public TokenKeyring(String keys, int activeKeyId, String keysFile, long refreshMs) {
+        this(keys, activeKeyId, keysFile, refreshMs, false, "", "");
+    }
+
+    @Autowired
+    public TokenKeyring(@Value("${qr.keys:}") String keys,
+                        @Value("${qr.active-key-id:1}") int activeKeyId,
+                        @Value("${qr.keys.file:}") String keysFile,
+                        @Value("${qr.keys.refresh-ms:60000}") long refreshMs,
+                        @Value("${qr.legacy.enabled:false}") boolean legacyEnabled,
+                        @Value("${qr.legacy.secret:}") String legacySecret,
+                        @Value("${qr.legacy.accept-until:}") String legacyAcceptUntil) {
+        this.keysFile = keysFile == null || keysFile.isBlank() ? null : Path.of(keysFile);
+        this.refreshMs = refreshMs;
+        if (this.keysFile != null) {
+            reloadFromFile(true);
+        } else {
+            reload(parse(keys), activeKeyId);
+        }
+
+        if (!legacyEnabled) {
+            legacyKey = null;
+            legacyUntilMs = 0;
+            return;
+        }
+        if (legacySecret == null || legacySecret.isBlank() || legacyAcceptUntil == null || legacyAcceptUntil.isBlank()) {
+            throw new IllegalArgumentException("qr.legacy.enabled needs qr.legacy.secret and qr.legacy.accept-until");
+        }
+        try {
+            legacyUntilMs = Instant.parse(legacyAcceptUntil.trim()).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("qr.legacy.accept-until must be an ISO-8601 instant: " + legacyAcceptUntil, e);
+        }
+        legacyKey = new Key(legacySecret.getBytes(StandardCharsets.UTF_8));
+        log.warn("Legacy JSON QR tokens are accepted until {}", legacyAcceptUntil.trim());
+    }
+
+    @PostConstruct
+    public void startRefresh() {
+        if (keysFile == null || refreshMs <= 0) {
+            return;
+        }
+        refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "qr-keyring-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        refresher.scheduleWithFixedDelay(() -> {
+            try {
+                reloadFromFile(false);
+            } catch (RuntimeException e) {
+                // Keep signing with the current keys until the file is fixed
+                log.error("QR key file reload failed: {}", e.getMessage());
+            }
+        }, refreshMs, refreshMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    /**
+     * Reloads {@code qr.keys} and {@code qr.active-key-id} from {@code qr.keys.file};
+     * unless forced, only when the file changed since the last load.
+     *
+     * @return true if a new key set was loaded
+     * @throws IllegalStateException if no key file is configured or it cannot be read
+     * @throws IllegalArgumentException if the file's keys are invalid; the current keys stay in use
+     */
+    public synchronized boolean reloadFromFile(boolean force) {
+        if (keysFile == null) {
+            throw new IllegalStateException("qr.keys.file is not set");
+        }
+        try {
+            long modified = Files.getLastModifiedTime(keysFile).toMillis();
+            if (!force && modified == keysFileModified) {
+                return false;
+            }
+            Properties properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(keysFile, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            }
+            reload(parse(properties.getProperty("qr.keys")),
+                    Integer.parseInt(properties.getProperty("qr.active-key-id", "1").trim()));
+            keysFileModified = modified;
+            return true;
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read QR key file " + keysFile + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Swaps in a new key set without blocking signers or validators. Keys whose
+     * secret is unchanged keep their warmed-up per-thread Mac instances.
+     *
+     * @throws IllegalArgumentException if no key is given or the active key is not among them
+     */
+    public synchronized void reload(Map<Integer, String> keys, int activeKeyId) {
+        Map<Integer, String> all = new HashMap<>(keys);
+        if (all.isEmpty()) {
+            throw new IllegalArgumentException("No QR signing keys configured: set qr.keys or qr.keys.file");
+        }
+        if (!all.containsKey(activeKeyId)) {
+            throw new IllegalArgumentException("Active QR key id " + activeKeyId + " is not configured");
+        }
+
+        Snapshot previous = snapshot;
+        Key[] ring = new Key[256];
+        for (Map.Entry<Integer, String> entry : all.entrySet()) {
+            int id = entry.getKey();
+            if (id < 0 || id > 255) {
+                throw new IllegalArgumentException("QR key id must be between 0 and 255: " + id);
+            }
+            if (entry.getValue().isEmpty()) {
+                throw new IllegalArgumentException("QR key " + id + " has an empty secret");
+            }
+            byte[] secret = entry.getValue().getBytes(StandardCharsets.UTF_8);
+            Key existing = previous != null ? previous.ring[id] : null;
+            ring[id] = existing != null && Arrays.equals(existing.secret, secret) ? existing : new Key(secret);
+        }
+
+        snapshot = new Snapshot(ring, activeKeyId);
+        log.info("QR keyring loaded: {} key(s), active key id {}", all.size(), activeKeyId);
+    }
+
+    public int getActiveKeyId() {
+        return snapshot.activeKeyId;
+    }
+
+    /**
+     * Signs a binary envelope with the active key: stamps the key id into {@code buf[1]}
+     * and writes the MAC of header + payload into the signature slot.
+     */
+    void sign(byte[] buf) throws ShortBufferException {
+        Snapshot current = snapshot;
+        buf[1] = (byte) current.activeKeyId;
+        Mac mac = current.ring[current.activeKeyId].macs.get().mac;
+        mac.update(buf, 0, TokenService.HEADER_LENGTH);
+        mac.update(buf, TokenService.PAYLOAD_OFFSET, buf.length - TokenService.PAYLOAD_OFFSET);
+        mac.doFinal(buf, TokenService.HEADER_LENGTH);
+    }
+
+    // Verifies a binary envelope with the key named in its header; unknown key ids fail
+    boolean verify(byte[] buf) throws ShortBufferException {
+        Key key = snapshot.ring[buf[1] & 0xFF];
+        if (key == null) {
+            return false;
+        }
+        MacHolder holder = key.macs.get();
+        holder.mac.update(buf, 0, TokenService.HEADER_LENGTH);
+        holder.mac.update(buf, TokenService.PAYLOAD_OFFSET, buf.length - TokenService.PAYLOAD_OFFSET);
+        holder.mac.doFinal(holder.scratch, 0);
+        return CompactCodec.equalsConstantTime(holder.scratch, 0, buf, TokenService.HEADER_LENGTH,
+                TokenService.SIGNATURE_LENGTH);
+    }
+
+    // Verifies a legacy JSON token: MAC of data[0, length) with the legacy key, while it is accepted
+    boolean verifyLegacy(byte[] data, int length, byte[] signature) throws ShortBufferException {
+        if (legacyKey == null || System.currentTimeMillis() > legacyUntilMs
+                || signature.length != TokenService.SIGNATURE_LENGTH) {
+            return false;
+        }
+        MacHolder holder = legacyKey.macs.get();
+        holder.mac.update(data, 0, length);
+        holder.mac.doFinal(holder.scratch, 0);
+        return CompactCodec.equalsConstantTime(holder.scratch, 0, signature, 0, TokenService.SIGNATURE_LENGTH);
+    }
+
+    private static Map<Integer, String> parse(String keys) {
+        Map<Integer, String> parsed = new HashMap<>();
+        if (keys == null || keys.isBlank()) {
+            return parsed;
+        }
+        for (String pair : keys.split(",")) {
+            int split = pair.indexOf(':');
+            if (split <= 0) {
+                throw new IllegalArgumentException("qr.keys entries must look like id:secret");
+            }
+            parsed.put(Integer.parseInt(pair.substring(0, split).trim()), pair.substring(split + 1).trim());
+        }
+        return parsed;
+    }
+
+    private static final class Snapshot {
+        private final Key[] ring;
+        private final int activeKeyId;
+
+        private Snapshot(Key[] ring, int activeKeyId) {
+            this.ring = ring;
+            this.activeKeyId = activeKeyId;
+        }
+    }
+
+    private static final class Key {
+        private final byte[] secret;
+        private final ThreadLocal<MacHolder> macs;
+
+        private Key(byte[] secret) {
+            this.secret = secret;
+            this.macs = ThreadLocal.withInitial(() -> new MacHolder(secret));
+        }
+    }
+
+    // Mac is not thread-safe; one initialized instance plus a scratch buffer per thread and key
+    private static final class MacHolder {
+        private final Mac mac;
+        private final byte[] scratch = new byte[TokenService.SIGNATURE_LENGTH];
+
+        private MacHolder(byte[] secret) {
+            try {
+                mac = Mac.getInstance(HMAC_SHA256);
+                mac.init(new SecretKeySpec(secret, HMAC_SHA256));
+            } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+                throw new IllegalStateException("HMAC initialization failed", e);
+            }
+        }
+    }
+}
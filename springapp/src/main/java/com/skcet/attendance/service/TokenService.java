@@ -1,53 +1,104 @@
 package com.skcet.attendance.service;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.skcet.attendance.dto.AttendanceInfo;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
-import java.nio.charset.StandardCharsets;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
+import javax.crypto.ShortBufferException;
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Service
 @Slf4j
 public class TokenService {
 
-    @Value("${qr.ttl.ms}")
-    private long qrTtlMs;
+    private final TokenKeyring keyring;
+    private final long qrTtlMs;
+    private final long rotatingMaxDurationMs;
 
-    private static final String HMAC_SHA256 = "HmacSHA256";
-    private static final String SECRET_KEY = "attendance-secret-key-2024";
+    // Binary token (v2), URL-safe Base64 without padding:
+    // [0] version | [1] key id (see TokenKeyring) | [2..9] timestamp | [10..17] nonce | [18..49] HMAC-SHA256 | [50..] payload
+    // The MAC covers the header and the payload, so TTL can be checked on the header alone.
+    // Scan tickets (ScanTicketService) reuse the same envelope with their own version byte.
+    private static final byte VERSION_2 = 2;
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Rotating token (v3): same envelope, but [2..9] holds the time-window counter and
+    // [10..17] the stream seed; the payload starts with [50..53] window seconds and
+    // [54..61] stream start before the usual fields.
+    private static final byte VERSION_ROTATING = 3;
+
+    static final int HEADER_LENGTH = 18;
+    static final int SIGNATURE_LENGTH = 32;
+    static final int PAYLOAD_OFFSET = HEADER_LENGTH + SIGNATURE_LENGTH;
+    private static final int ROTATING_FIELDS_OFFSET = PAYLOAD_OFFSET + 12;
+
+    private static final long CLOCK_SKEW_MS = 30_000;
+
+    // Legacy tokens are Base64("{json}_" + Base64(signature)) and so always start with "eyJ"
+    private static final String LEGACY_PREFIX = "eyJ";
+
+    // Pre-built, thread-safe reader for legacy JSON payloads
+    private static final ObjectReader LEGACY_PAYLOAD_READER = new ObjectMapper().readerFor(AttendancePayload.class);
+
+    public TokenService(TokenKeyring keyring,
+                        @Value("${qr.ttl.ms}") long qrTtlMs,
+                        @Value("${qr.rotating.max-duration.ms:3600000}") long rotatingMaxDurationMs) {
+        this.keyring = keyring;
+        this.qrTtlMs = qrTtlMs;
+        this.rotatingMaxDurationMs = rotatingMaxDurationMs;
+    }
 
     // Generate QR token with attendance info
     public String generateToken(String staffId, String staffName, String sessionDate,
                                 String period, String startTime, String endTime,
                                 String courseId, String courseName, String location,
                                 String attendanceType, String className) {
-        try {
-            long timestamp = System.currentTimeMillis();
-            String randomId = UUID.randomUUID().toString().substring(0, 8);
+        return generateToken(System.currentTimeMillis(), staffId, staffName, sessionDate, period,
+                startTime, endTime, courseId, courseName, location, attendanceType, className);
+    }
+
+    public String generateToken(AttendanceInfo info) {
+        return generateToken(info, System.currentTimeMillis());
+    }
 
-            // Build JSON payload
-            AttendancePayload payloadObj = new AttendancePayload(
-                    timestamp, randomId, staffId, staffName, sessionDate,
-                    period, startTime, endTime, courseId, courseName,
-                    location, attendanceType, className
-            );
+    // Token that becomes valid at validFrom (e.g. a pre-generated token for a later period)
+    public String generateToken(AttendanceInfo info, long validFrom) {
+        return generateToken(validFrom,
+                String.valueOf(info.getStaffId()),
+                info.getStaffName(),
+                info.getSessionDate(),
+                info.getPeriod(),
+                info.getStartTime(),
+                info.getEndTime(),
+                String.valueOf(info.getCourseId()),
+                info.getCourseName(),
+                info.getLocation(),
+                info.getAttendanceType(),
+                info.getClassName());
+    }
 
-            String payloadJson = objectMapper.writeValueAsString(payloadObj);
+    private String generateToken(long timestamp, String staffId, String staffName, String sessionDate,
+                                 String period, String startTime, String endTime,
+                                 String courseId, String courseName, String location,
+                                 String attendanceType, String className) {
+        try {
+            byte[][] fields = encodeFields(staffId, staffName, sessionDate, period, startTime, endTime,
+                    courseId, courseName, location, attendanceType, className);
 
-            String signature = generateSignature(payloadJson);
+            byte[] buf = new byte[PAYLOAD_OFFSET + sizeOf(fields)];
+            buf[0] = VERSION_2;
+            CompactCodec.putLong(buf, 2, timestamp);
+            CompactCodec.putLong(buf, 10, ThreadLocalRandom.current().nextLong());
+            putFields(buf, PAYLOAD_OFFSET, fields);
 
-            // Combine payload and signature
-            return Base64.getEncoder()
-                    .encodeToString((payloadJson + "_" + signature).getBytes(StandardCharsets.UTF_8));
+            sign(buf);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(buf);
 
         } catch (Exception e) {
             log.error("Failed to generate token: {}", e.getMessage());
@@ -57,29 +108,36 @@ public class TokenService {
 
     // Validate token and return payload if valid
     public AttendancePayload validateToken(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
         try {
-            String decoded = new String(Base64.getDecoder().decode(token), StandardCharsets.UTF_8);
-            int splitIndex = decoded.lastIndexOf("_");
-            if (splitIndex == -1) return null;
-
-            String payloadJson = decoded.substring(0, splitIndex);
-            String signature = decoded.substring(splitIndex + 1);
+            if (token.startsWith(LEGACY_PREFIX)) {
+                return validateLegacyToken(token);
+            }
 
-            // Verify signature
-            if (!signature.equals(generateSignature(payloadJson))) {
+            byte[] buf = Base64.getUrlDecoder().decode(token);
+            if (buf.length < PAYLOAD_OFFSET) {
+                return null;
+            }
+            if (buf[0] == VERSION_ROTATING) {
+                return validateRotatingToken(buf);
+            }
+            if (buf[0] != VERSION_2) {
                 return null;
             }
 
-            // Parse JSON
-            AttendancePayload payload = objectMapper.readValue(payloadJson, AttendancePayload.class);
+            // Check TTL before doing any crypto or payload work
+            long timestamp = CompactCodec.getLong(buf, 2);
+            if (isExpired(timestamp)) {
+                return null;
+            }
 
-            // Check TTL
-            long now = System.currentTimeMillis();
-            if ((now - payload.getTimestamp()) > qrTtlMs) {
+            if (!verify(buf)) {
                 return null;
             }
 
-            return payload; // return payload if valid
+            return readPayload(buf, PAYLOAD_OFFSET, timestamp, CompactCodec.getLong(buf, 10), timestamp + qrTtlMs);
 
         } catch (Exception e) {
             log.error("Token validation failed: {}", e.getMessage());
@@ -87,17 +145,143 @@ public class TokenService {
         }
     }
 
+    /**
+     * Builds the unsigned template for a rotating QR stream. Everything except the
+     * window counter is fixed for the life of the stream, so each rotation is a copy,
+     * an 8-byte write and one HMAC.
+     */
+    byte[] rotatingTemplate(long seed, int windowSeconds, long streamStart,
+                            String staffId, String staffName, String sessionDate,
+                            String period, String startTime, String endTime,
+                            String courseId, String courseName, String location,
+                            String attendanceType, String className) {
+        byte[][] fields = encodeFields(staffId, staffName, sessionDate, period, startTime, endTime,
+                courseId, courseName, location, attendanceType, className);
+
+        byte[] template = new byte[ROTATING_FIELDS_OFFSET + sizeOf(fields)];
+        template[0] = VERSION_ROTATING;
+        CompactCodec.putLong(template, 10, seed);
+        CompactCodec.putInt(template, PAYLOAD_OFFSET, windowSeconds);
+        CompactCodec.putLong(template, PAYLOAD_OFFSET + 4, streamStart);
+        putFields(template, ROTATING_FIELDS_OFFSET, fields);
+        return template;
+    }
+
+    // Token for one time window of a rotating stream
+    String rotatingToken(byte[] template, long window) throws ShortBufferException {
+        byte[] buf = template.clone();
+        CompactCodec.putLong(buf, 2, window);
+        sign(buf);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buf);
+    }
+
+    // Rotating tokens are valid for their own window and the one after it
+    private AttendancePayload validateRotatingToken(byte[] buf) throws ShortBufferException {
+        if (buf.length < ROTATING_FIELDS_OFFSET) {
+            return null;
+        }
+        long window = CompactCodec.getLong(buf, 2);
+        long windowMs = CompactCodec.getInt(buf, PAYLOAD_OFFSET) * 1000L;
+        if (windowMs <= 0) {
+            return null;
+        }
+        long currentWindow = System.currentTimeMillis() / windowMs;
+        if (window != currentWindow && window != currentWindow - 1) {
+            return null;
+        }
+
+        if (!verify(buf)) {
+            return null;
+        }
+
+        // A student redeems a stream once, so the redemption has to outlive the whole stream
+        long streamStart = CompactCodec.getLong(buf, PAYLOAD_OFFSET + 4);
+        long redeemableUntil = streamStart + rotatingMaxDurationMs + 2 * windowMs;
+        return readPayload(buf, ROTATING_FIELDS_OFFSET, window * windowMs, CompactCodec.getLong(buf, 10), redeemableUntil);
+    }
+
+    public long getRotatingMaxDurationMs() {
+        return rotatingMaxDurationMs;
+    }
+
     public String generateSessionId() {
         return UUID.randomUUID().toString();
     }
 
-    private String generateSignature(String payload) throws NoSuchAlgorithmException, InvalidKeyException {
-        Mac mac = Mac.getInstance(HMAC_SHA256);
-        SecretKeySpec secretKeySpec = new SecretKeySpec(SECRET_KEY.getBytes(StandardCharsets.UTF_8), HMAC_SHA256);
-        mac.init(secretKeySpec);
+    // Signs a binary envelope (header + payload) with the keyring's active key
+    void sign(byte[] buf) throws ShortBufferException {
+        keyring.sign(buf);
+    }
+
+    // Verifies a binary envelope against the key id in its header
+    boolean verify(byte[] buf) throws ShortBufferException {
+        return buf.length >= PAYLOAD_OFFSET && keyring.verify(buf);
+    }
+
+    // JSON + Base64 tokens issued before the binary format; accepted until they age out
+    private AttendancePayload validateLegacyToken(String token) throws Exception {
+        byte[] decoded = Base64.getDecoder().decode(token);
+        int splitIndex = lastIndexOf(decoded, (byte) '_');
+        if (splitIndex == -1) return null;
+
+        byte[] signature = Base64.getDecoder().decode(Arrays.copyOfRange(decoded, splitIndex + 1, decoded.length));
+        if (!keyring.verifyLegacy(decoded, splitIndex, signature)) {
+            return null;
+        }
+
+        AttendancePayload payload = LEGACY_PAYLOAD_READER.readValue(decoded, 0, splitIndex);
+        if (isExpired(payload.getTimestamp())) {
+            return null;
+        }
+        payload.setExpiresAt(payload.getTimestamp() + qrTtlMs);
+        return payload;
+    }
+
+    // Tokens are valid from their timestamp (less some clock skew) until timestamp + TTL
+    private boolean isExpired(long timestamp) {
+        long age = System.currentTimeMillis() - timestamp;
+        return age > qrTtlMs || age < -CLOCK_SKEW_MS;
+    }
 
-        byte[] signature = mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
-        return Base64.getEncoder().encodeToString(signature);
+    private static int lastIndexOf(byte[] buf, byte value) {
+        for (int i = buf.length - 1; i >= 0; i--) {
+            if (buf[i] == value) return i;
+        }
+        return -1;
+    }
+
+    private static byte[][] encodeFields(String... values) {
+        byte[][] fields = new byte[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            fields[i] = CompactCodec.utf8(values[i]);
+        }
+        return fields;
+    }
+
+    private static int sizeOf(byte[][] fields) {
+        int size = 0;
+        for (byte[] field : fields) {
+            size += CompactCodec.sizeOf(field);
+        }
+        return size;
+    }
+
+    private static void putFields(byte[] buf, int pos, byte[][] fields) {
+        for (byte[] field : fields) {
+            pos = CompactCodec.putString(buf, pos, field);
+        }
+    }
+
+    private static AttendancePayload readPayload(byte[] buf, int offset, long timestamp, long nonce, long expiresAt) {
+        CompactCodec.Reader reader = new CompactCodec.Reader(buf, offset, buf.length);
+        AttendancePayload payload = new AttendancePayload(
+                timestamp, CompactCodec.toHex(nonce),
+                reader.readString(), reader.readString(), reader.readString(), reader.readString(),
+                reader.readString(), reader.readString(), reader.readString(), reader.readString(),
+                reader.readString(), reader.readString(), reader.readString()
+        );
+        payload.setExpiresAt(expiresAt);
+        return payload;
     }
 
     public long getQrTtlMs() {
@@ -120,6 +304,10 @@ public class TokenService {
         private String attendanceType;
         private String className; // ✅ Added
 
+        // Until when the token this payload came from can be redeemed; set on validation
+        @JsonIgnore
+        private long expiresAt;
+
         public AttendancePayload() {}
 
         public AttendancePayload(long timestamp, String randomId, String staffId, String staffName,
@@ -155,5 +343,9 @@ public class TokenService {
         public String getLocation() { return location; }
         public String getAttendanceType() { return attendanceType; }
         public String getClassName() { return className; } // ✅ Getter added
+        @JsonIgnore
+        public long getExpiresAt() { return expiresAt; }
+
+        void setExpiresAt(long expiresAt) { this.expiresAt = expiresAt; }
     }
 }
@@ -0,0 +1,44 @@
+-- Schema of db/migration (through V4) for the embedded H2 databases of the 'local' profile.
+-- Run by H2 on every new connection, so every statement is idempotent.
+
+CREATE TABLE IF NOT EXISTS class_session (
+    id           BIGINT       NOT NULL AUTO_INCREMENT,
+    class_name   VARCHAR(64)  NOT NULL,
+    session_date DATE         NOT NULL,
+    period       SMALLINT     NOT NULL,
+    staff_id     VARCHAR(255),
+    staff_name   VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_class_session UNIQUE (class_name, session_date, period)
+);
+
+CREATE TABLE IF NOT EXISTS attendance (
+    id            BIGINT       NOT NULL AUTO_INCREMENT,
+    student_email VARCHAR(255) NOT NULL,
+    session_id    BIGINT       NOT NULL,
+    session_date  DATE         NOT NULL,
+    present       BOOLEAN      NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_attendance_student_session UNIQUE (student_email, session_id),
+    CONSTRAINT fk_attendance_session FOREIGN KEY (session_id) REFERENCES class_session (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_attendance_student_date_present ON attendance (student_email, session_date, present);
+CREATE INDEX IF NOT EXISTS idx_attendance_session ON attendance (session_id);
+
+CREATE TABLE IF NOT EXISTS attendance_student_counter (
+    student_email VARCHAR(255) NOT NULL,
+    class_name    VARCHAR(64)  NOT NULL,
+    term          VARCHAR(16)  NOT NULL,
+    present_count BIGINT       NOT NULL,
+    absent_count  BIGINT       NOT NULL,
+    PRIMARY KEY (student_email, class_name, term)
+);
+
+CREATE TABLE IF NOT EXISTS attendance_class_day_counter (
+    class_name    VARCHAR(64) NOT NULL,
+    session_date  DATE        NOT NULL,
+    present_count BIGINT      NOT NULL,
+    absent_count  BIGINT      NOT NULL,
+    PRIMARY KEY (class_name, session_date)
+);
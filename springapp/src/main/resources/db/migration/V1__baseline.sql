@@ -0,0 +1,33 @@
+-- Schema as spring.jpa.hibernate.ddl-auto=update left it, with session_date and period
+-- still stored as strings. On an existing database every statement is a no-op; on an
+-- empty one it creates the tables V2 converts.
+
+CREATE TABLE IF NOT EXISTS attendance (
+    id            BIGINT       NOT NULL AUTO_INCREMENT,
+    student_email VARCHAR(255) NOT NULL,
+    staff_id      VARCHAR(255),
+    staff_name    VARCHAR(255),
+    class_name    VARCHAR(64),
+    session_date  VARCHAR(10),
+    period        VARCHAR(16),
+    present       BIT(1)       NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_attendance_student_session UNIQUE (student_email, class_name, session_date, period)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS attendance_student_counter (
+    student_email VARCHAR(255) NOT NULL,
+    class_name    VARCHAR(64)  NOT NULL,
+    term          VARCHAR(16)  NOT NULL,
+    present_count BIGINT       NOT NULL,
+    absent_count  BIGINT       NOT NULL,
+    PRIMARY KEY (student_email, class_name, term)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS attendance_class_day_counter (
+    class_name    VARCHAR(64) NOT NULL,
+    session_date  VARCHAR(10) NOT NULL,
+    present_count BIGINT      NOT NULL,
+    absent_count  BIGINT      NOT NULL,
+    PRIMARY KEY (class_name, session_date)
+) ENGINE = InnoDB;
@@ -0,0 +1,97 @@
+-- session_date becomes DATE and period SMALLINT, so range predicates and ORDER BY work
+-- on real values and the composite indexes are a few bytes per entry instead of ~100.
+--
+-- The table is rebuilt rather than ALTERed in place: rows are converted and
+-- deduplicated on the way in, and the original is kept as attendance_v1 for auditing.
+-- Rows that cannot be converted are left behind in attendance_v1 and listed, with the
+-- reason, in attendance_v1_skipped:
+--   SELECT s.reason, v.* FROM attendance_v1_skipped s JOIN attendance_v1 v ON v.id = s.id;
+-- Drop both tables once that has been checked.
+
+CREATE TABLE attendance_v2 (
+    id            BIGINT       NOT NULL AUTO_INCREMENT,
+    student_email VARCHAR(255) NOT NULL,
+    staff_id      VARCHAR(255),
+    staff_name    VARCHAR(255),
+    class_name    VARCHAR(64)  NOT NULL,
+    session_date  DATE         NOT NULL,
+    period        SMALLINT     NOT NULL,
+    present       BIT(1)       NOT NULL,
+    PRIMARY KEY (id),
+    -- Natural key for the upsert
+    CONSTRAINT uk_attendance_student_session UNIQUE (student_email, class_name, session_date, period),
+    -- Student summary: equality on email, range on date, present read from the index
+    INDEX idx_attendance_student_date_present (student_email, session_date, present),
+    -- Class session pages (trailing primary key gives id order) and date-range exports
+    INDEX idx_attendance_class_session (class_name, session_date, period)
+) ENGINE = InnoDB;
+
+-- Rows that cannot be converted, found up front so strict mode never sees a bad value.
+-- Dates must be real yyyy-MM-dd dates; a period is its first run of digits ("3", "P3",
+-- "Period 3") and must be above 0; class names must fit the new VARCHAR(64).
+CREATE TABLE attendance_v1_skipped (
+    id     BIGINT      NOT NULL,
+    reason VARCHAR(32) NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+INSERT INTO attendance_v1_skipped (id, reason)
+SELECT id, reason
+FROM (SELECT id,
+             CASE WHEN student_email IS NULL OR student_email = '' THEN 'student_email missing'
+                  WHEN class_name IS NULL OR class_name = '' THEN 'class_name missing'
+                  WHEN CHAR_LENGTH(class_name) > 64 THEN 'class_name over 64 characters'
+                  WHEN session_date IS NULL
+                    OR session_date NOT REGEXP '^[0-9]{4}-(0[1-9]|1[0-2])-(0[1-9]|[12][0-9]|3[01])$'
+                    OR CAST(SUBSTRING(session_date, 9, 2) AS UNSIGNED)
+                       > DAY(LAST_DAY(CONCAT(SUBSTRING(session_date, 1, 7), '-01')))
+                       THEN 'session_date unreadable'
+                  WHEN COALESCE(CAST(REGEXP_SUBSTR(period, '[0-9]{1,4}') AS UNSIGNED), 0) = 0
+                       THEN 'period unreadable'
+             END AS reason
+      FROM attendance) r
+WHERE reason IS NOT NULL;
+
+-- Backfill everything else. Duplicates of one session collapse onto the oldest id,
+-- present if any was.
+INSERT INTO attendance_v2 (id, student_email, staff_id, staff_name, class_name, session_date, period, present)
+SELECT MIN(t.id), t.student_email, MIN(t.staff_id), MIN(t.staff_name), t.class_name,
+       t.session_date, t.period, MAX(t.present)
+FROM (SELECT id, student_email, staff_id, staff_name, class_name,
+             STR_TO_DATE(session_date, '%Y-%m-%d') AS session_date,
+             CAST(REGEXP_SUBSTR(period, '[0-9]{1,4}') AS UNSIGNED) AS period,
+             present + 0 AS present
+      FROM attendance
+      WHERE id NOT IN (SELECT id FROM attendance_v1_skipped)) t
+GROUP BY t.student_email, t.class_name, t.session_date, t.period;
+
+RENAME TABLE attendance TO attendance_v1, attendance_v2 TO attendance;
+
+-- Counters are derived data: recreate them with a DATE key and recompute from the
+-- converted rows. The term expression matches StudentAttendanceCounter.termOf.
+DROP TABLE attendance_class_day_counter;
+
+CREATE TABLE attendance_class_day_counter (
+    class_name    VARCHAR(64) NOT NULL,
+    session_date  DATE        NOT NULL,
+    present_count BIGINT      NOT NULL,
+    absent_count  BIGINT      NOT NULL,
+    PRIMARY KEY (class_name, session_date)
+) ENGINE = InnoDB;
+
+INSERT INTO attendance_class_day_counter (class_name, session_date, present_count, absent_count)
+SELECT class_name, session_date, SUM(present = 1), SUM(present = 0)
+FROM attendance
+GROUP BY class_name, session_date;
+
+DELETE FROM attendance_student_counter;
+
+INSERT INTO attendance_student_counter (student_email, class_name, term, present_count, absent_count)
+SELECT student_email, class_name,
+       CONCAT(start_year, '-', LPAD(MOD(start_year + 1, 100), 2, '0'), IF(odd, '/ODD', '/EVEN')),
+       SUM(present = 1), SUM(present = 0)
+FROM (SELECT student_email, class_name, present,
+             MONTH(session_date) >= 7 AS odd,
+             IF(MONTH(session_date) >= 7, YEAR(session_date), YEAR(session_date) - 1) AS start_year
+      FROM attendance) t
+GROUP BY student_email, class_name, start_year, odd;
@@ -0,0 +1,50 @@
+-- Move the per-session columns (class, date, period, staff) out of attendance into
+-- class_session. An attendance row shrinks to id, student_email, session_id and
+-- present, and its indexes carry an 8-byte session id instead of the strings.
+
+CREATE TABLE class_session (
+    id           BIGINT       NOT NULL AUTO_INCREMENT,
+    class_name   VARCHAR(64)  NOT NULL,
+    session_date DATE         NOT NULL,
+    period       SMALLINT     NOT NULL,
+    staff_id     VARCHAR(255),
+    staff_name   VARCHAR(255),
+    PRIMARY KEY (id),
+    -- Resolving a session, and class/date-range lookups for listings and exports
+    CONSTRAINT uk_class_session UNIQUE (class_name, session_date, period)
+) ENGINE = InnoDB;
+
+-- One session per (class, date, period), with the staff of its oldest mark.
+-- Inserted in date order so session ids roughly follow time.
+INSERT INTO class_session (class_name, session_date, period, staff_id, staff_name)
+SELECT a.class_name, a.session_date, a.period, a.staff_id, a.staff_name
+FROM attendance a
+JOIN (SELECT MIN(id) AS id FROM attendance GROUP BY class_name, session_date, period) f ON f.id = a.id
+ORDER BY a.session_date, a.class_name, a.period;
+
+ALTER TABLE attendance ADD COLUMN session_id BIGINT NULL AFTER student_email;
+
+UPDATE attendance a
+JOIN class_session s
+  ON s.class_name = a.class_name
+ AND s.session_date = a.session_date
+ AND s.period = a.period
+SET a.session_id = s.id;
+
+ALTER TABLE attendance
+    DROP INDEX uk_attendance_student_session,
+    DROP INDEX idx_attendance_student_date_present,
+    DROP INDEX idx_attendance_class_session,
+    DROP COLUMN staff_id,
+    DROP COLUMN staff_name,
+    DROP COLUMN class_name,
+    DROP COLUMN session_date,
+    DROP COLUMN period,
+    MODIFY session_id BIGINT NOT NULL,
+    -- Natural key for the upsert
+    ADD CONSTRAINT uk_attendance_student_session UNIQUE (student_email, session_id),
+    -- Student summaries: covering for the student's rows, joined to class_session by id
+    ADD INDEX idx_attendance_student_session_present (student_email, session_id, present),
+    -- Class session pages (trailing primary key gives id order) and exports
+    ADD INDEX idx_attendance_session (session_id),
+    ADD CONSTRAINT fk_attendance_session FOREIGN KEY (session_id) REFERENCES class_session (id);
@@ -0,0 +1,16 @@
+-- Copy the session date onto attendance so a student's summary over a date range is a
+-- seek on (student_email, session_date) instead of a read of the student's whole
+-- history joined to class_session. A session's date never changes (it is part of
+-- uk_class_session), so the copy cannot drift; the upsert writes it with the row.
+
+ALTER TABLE attendance ADD COLUMN session_date DATE NULL AFTER session_id;
+
+UPDATE attendance a
+JOIN class_session s ON s.id = a.session_id
+SET a.session_date = s.session_date;
+
+ALTER TABLE attendance
+    MODIFY session_date DATE NOT NULL,
+    DROP INDEX idx_attendance_student_session_present,
+    -- Student summaries: covering, ranged on the date
+    ADD INDEX idx_attendance_student_date_present (student_email, session_date, present);
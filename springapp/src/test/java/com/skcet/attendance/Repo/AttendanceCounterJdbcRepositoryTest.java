@@ -0,0 +1,95 @@
+package com.skcet.attendance.Repo;
+
+import com.skcet.attendance.Entity.Attendance;
+import com.skcet.attendance.Entity.ClassSession;
+import com.skcet.attendance.Entity.StudentAttendanceCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringJUnitConfig(JdbcTestConfig.class)
+class AttendanceCounterJdbcRepositoryTest {
+
+    private static final String STUDENT_COUNTERS =
+            "SELECT student_email, class_name, term, present_count, absent_count FROM attendance_student_counter "
+                    + "ORDER BY student_email, class_name, term";
+    private static final String CLASS_DAY_COUNTERS =
+            "SELECT class_name, session_date, present_count, absent_count FROM attendance_class_day_counter "
+                    + "ORDER BY class_name, session_date";
+
+    @Autowired
+    private AttendanceJdbcRepository attendance;
+    @Autowired
+    private AttendanceCounterJdbcRepository counters;
+    @Autowired
+    private ClassSessionJdbcRepository sessions;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        JdbcTestConfig.clear(jdbcTemplate);
+    }
+
+    // Dates on both sides of July and of a century-padded year, so the SQL term must match termOf
+    @Test
+    void rebuildReproducesIncrementalCounters() {
+        List<Attendance> rows = new ArrayList<>();
+        LocalDate[] days = {LocalDate.of(2024, 9, 16), LocalDate.of(2025, 2, 3), LocalDate.of(2009, 7, 1),
+                LocalDate.of(2010, 1, 4), LocalDate.of(2000, 12, 31)};
+        for (LocalDate day : days) {
+            for (short period = 1; period <= 2; period++) {
+                ClassSession session = session("CSE-A", day, period);
+                for (int s = 0; s < 4; s++) {
+                    rows.add(row("s" + s + "@skcet.ac.in", session, (s + period) % 3 != 0));
+                }
+            }
+        }
+        attendance.upsertAll(rows);
+        // Flip a few so the incremental counters have seen updates as well as inserts
+        attendance.upsertAll(List.of(rows.get(0), rows.get(5)).stream()
+                .map(r -> row(r.getStudentEmail(), r.getSession(), !r.isPresent())).toList());
+
+        List<Map<String, Object>> studentBefore = jdbcTemplate.queryForList(STUDENT_COUNTERS);
+        List<Map<String, Object>> classDayBefore = jdbcTemplate.queryForList(CLASS_DAY_COUNTERS);
+        assertTrue(studentBefore.stream().anyMatch(c -> c.get("term").equals(StudentAttendanceCounter.termOf(days[2]))));
+
+        jdbcTemplate.update("UPDATE attendance_student_counter SET present_count = 99");
+        jdbcTemplate.update("DELETE FROM attendance_class_day_counter WHERE session_date = ?", days[0]);
+
+        assertEquals(rows.size(), counters.rebuild());
+        assertEquals(studentBefore, jdbcTemplate.queryForList(STUDENT_COUNTERS));
+        assertEquals(classDayBefore, jdbcTemplate.queryForList(CLASS_DAY_COUNTERS));
+    }
+
+    @Test
+    void rebuildOfEmptyTableClearsCounters() {
+        jdbcTemplate.update("INSERT INTO attendance_class_day_counter VALUES ('CSE-A', DATE '2024-09-16', 3, 1)");
+
+        assertEquals(0, counters.rebuild());
+        assertEquals(0, jdbcTemplate.queryForList(CLASS_DAY_COUNTERS).size());
+    }
+
+    private ClassSession session(String className, LocalDate day, short period) {
+        long id = sessions.findOrCreate(className, day, period, "S1", "Staff");
+        return new ClassSession(id, className, day, period, "S1", "Staff");
+    }
+
+    private static Attendance row(String email, ClassSession session, boolean present) {
+        Attendance row = new Attendance();
+        row.setStudentEmail(email);
+        row.setSession(session);
+        row.setPresent(present);
+        return row;
+    }
+}
@@ -0,0 +1,149 @@
+package com.skcet.attendance.Repo;
+
+import com.skcet.attendance.Entity.Attendance;
+import com.skcet.attendance.Entity.ClassSession;
+import com.skcet.attendance.Repo.AttendanceJdbcRepository.UpsertResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringJUnitConfig(JdbcTestConfig.class)
+class AttendanceJdbcRepositoryTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 9, 16);
+
+    @Autowired
+    private AttendanceJdbcRepository repository;
+    @Autowired
+    private ClassSessionJdbcRepository sessions;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private ClassSession session;
+
+    @BeforeEach
+    void setUp() {
+        JdbcTestConfig.clear(jdbcTemplate);
+        long id = sessions.findOrCreate("CSE-A", DAY, (short) 3, "S1", "Staff");
+        session = new ClassSession(id, "CSE-A", DAY, (short) 3, "S1", "Staff");
+    }
+
+    @Test
+    void singleUpsertReportsWhatChanged() {
+        assertEquals(UpsertResult.INSERTED, repository.upsert(row("a@skcet.ac.in", true)));
+        assertEquals(UpsertResult.UNCHANGED, repository.upsert(row("a@skcet.ac.in", true)));
+        assertEquals(UpsertResult.UPDATED, repository.upsert(row("a@skcet.ac.in", false)));
+
+        assertEquals(1, count("SELECT COUNT(*) FROM attendance"));
+        assertCounters(0, 1);
+    }
+
+    // A key repeated within one batch sees the earlier rows of the same batch
+    @Test
+    void batchResultsFollowRowOrder() {
+        List<UpsertResult> results = repository.upsertAll(List.of(
+                row("a@skcet.ac.in", true), row("b@skcet.ac.in", false),
+                row("a@skcet.ac.in", true), row("a@skcet.ac.in", false)));
+
+        assertEquals(List.of(UpsertResult.INSERTED, UpsertResult.INSERTED,
+                UpsertResult.UNCHANGED, UpsertResult.UPDATED), results);
+        assertEquals(2, count("SELECT COUNT(*) FROM attendance"));
+        assertCounters(0, 2);
+    }
+
+    @Test
+    void batchMixesNewAndExistingRows() {
+        repository.upsert(row("a@skcet.ac.in", true));
+        repository.upsert(row("b@skcet.ac.in", true));
+
+        List<UpsertResult> results = repository.upsertAll(List.of(
+                row("a@skcet.ac.in", true), row("b@skcet.ac.in", false), row("c@skcet.ac.in", true)));
+
+        assertEquals(List.of(UpsertResult.UNCHANGED, UpsertResult.UPDATED, UpsertResult.INSERTED), results);
+        assertCounters(2, 1);
+    }
+
+    // Simultaneous re-scans of one student: one insert, the rest are single upserts that change nothing
+    @Test
+    void concurrentDuplicateScansInsertOnce() throws Exception {
+        int threads = 8;
+        List<UpsertResult> results = concurrently(threads, i -> repository.upsert(row("a@skcet.ac.in", true)));
+
+        assertEquals(1, results.stream().filter(r -> r == UpsertResult.INSERTED).count());
+        assertEquals(threads - 1, results.stream().filter(r -> r == UpsertResult.UNCHANGED).count());
+        assertEquals(1, count("SELECT COUNT(*) FROM attendance"));
+        assertCounters(1, 0);
+    }
+
+    // Batches naming the same keys in opposite orders still lock them in one order, so neither is a deadlock victim
+    @Test
+    void concurrentBatchesOverSharedKeysDoNotDeadlock() throws Exception {
+        int threads = 8;
+        List<List<UpsertResult>> results = concurrently(threads, i -> i % 2 == 0
+                ? repository.upsertAll(List.of(row("a@skcet.ac.in", true), row("b@skcet.ac.in", true)))
+                : repository.upsertAll(List.of(row("b@skcet.ac.in", true), row("a@skcet.ac.in", true))));
+
+        assertEquals(2, results.stream().flatMap(List::stream).filter(r -> r == UpsertResult.INSERTED).count());
+        assertEquals(2, count("SELECT COUNT(*) FROM attendance"));
+        assertCounters(2, 0);
+    }
+
+    // Runs the calls together from a start line and fails on the first exception any of them threw
+    private static <T> List<T> concurrently(int threads, IntFunction<T> call) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<T>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                int n = i;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return call.apply(n);
+                }));
+            }
+            start.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get(30, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Attendance row(String email, boolean present) {
+        Attendance row = new Attendance();
+        row.setStudentEmail(email);
+        row.setSession(session);
+        row.setPresent(present);
+        return row;
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+
+    private void assertCounters(long present, long absent) {
+        Map<String, Object> day = jdbcTemplate.queryForMap(
+                "SELECT present_count, absent_count FROM attendance_class_day_counter WHERE class_name = ? AND session_date = ?",
+                "CSE-A", DAY);
+        assertEquals(present, ((Number) day.get("present_count")).longValue());
+        assertEquals(absent, ((Number) day.get("absent_count")).longValue());
+    }
+}
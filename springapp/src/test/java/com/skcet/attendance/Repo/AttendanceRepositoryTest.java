@@ -0,0 +1,90 @@
+package com.skcet.attendance.Repo;
+
+import com.skcet.attendance.Entity.Attendance;
+import com.skcet.attendance.Entity.ClassSession;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// JPQL queries over the 'local' profile's H2 schema; each test rolls back
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:jpa-test;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;"
+                + "INIT=RUNSCRIPT FROM 'classpath:db/h2/schema.sql'",
+        "spring.flyway.enabled=false",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({AttendanceJdbcRepository.class, AttendanceCounterJdbcRepository.class, ClassSessionJdbcRepository.class})
+class AttendanceRepositoryTest {
+
+    private static final String STUDENT = "a@skcet.ac.in";
+
+    @Autowired
+    private AttendanceRepository repository;
+    @Autowired
+    private AttendanceJdbcRepository attendance;
+    @Autowired
+    private ClassSessionJdbcRepository sessions;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void summaryCountsOnlyTheRange() {
+        List<Attendance> rows = new ArrayList<>();
+        rows.add(row(STUDENT, session(LocalDate.of(2024, 8, 30), (short) 1), true));
+        rows.add(row(STUDENT, session(LocalDate.of(2024, 9, 2), (short) 1), true));
+        rows.add(row(STUDENT, session(LocalDate.of(2024, 9, 2), (short) 2), false));
+        rows.add(row(STUDENT, session(LocalDate.of(2024, 9, 30), (short) 1), true));
+        rows.add(row(STUDENT, session(LocalDate.of(2024, 10, 1), (short) 1), false));
+        rows.add(row("b@skcet.ac.in", session(LocalDate.of(2024, 9, 2), (short) 1), true));
+        attendance.upsertAll(rows);
+
+        AttendanceRepository.StudentSummary summary =
+                repository.summarizeByStudentEmail(STUDENT, LocalDate.of(2024, 9, 1), LocalDate.of(2024, 9, 30));
+
+        assertEquals(3, summary.getTotal());
+        assertEquals(2, summary.getPresent());
+    }
+
+    @Test
+    void upsertCopiesTheSessionDate() {
+        LocalDate day = LocalDate.of(2024, 9, 16);
+        attendance.upsert(row(STUDENT, session(day, (short) 3), true));
+
+        assertEquals(day, jdbcTemplate.queryForObject(
+                "SELECT session_date FROM attendance WHERE student_email = ?", LocalDate.class, STUDENT));
+    }
+
+    // The summary is a range on the date index rather than the student's whole history
+    @Test
+    void summaryRangeUsesTheDateIndex() {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN SELECT COUNT(*) FROM attendance "
+                + "WHERE student_email = 'a@skcet.ac.in' AND session_date BETWEEN DATE '2024-09-01' AND DATE '2024-09-30'",
+                String.class);
+
+        assertTrue(plan.contains("idx_attendance_student_date_present"), plan);
+    }
+
+    private ClassSession session(LocalDate day, short period) {
+        long id = sessions.findOrCreate("CSE-A", day, period, "S1", "Staff");
+        return new ClassSession(id, "CSE-A", day, period, "S1", "Staff");
+    }
+
+    private static Attendance row(String email, ClassSession session, boolean present) {
+        Attendance row = new Attendance();
+        row.setStudentEmail(email);
+        row.setSession(session);
+        row.setPresent(present);
+        return row;
+    }
+}
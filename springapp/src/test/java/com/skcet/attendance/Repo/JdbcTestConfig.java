@@ -0,0 +1,45 @@
+package com.skcet.attendance.Repo;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+import javax.sql.DataSource;
+
+// The JDBC repositories over an embedded H2 database in MySQL mode with the 'local' profile's schema
+@Configuration
+@EnableTransactionManagement
+@Import({AttendanceJdbcRepository.class, AttendanceCounterJdbcRepository.class, ClassSessionJdbcRepository.class})
+public class JdbcTestConfig {
+
+    static final String H2_URL = "jdbc:h2:mem:%s;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;"
+            + "INIT=RUNSCRIPT FROM 'classpath:db/h2/schema.sql'";
+
+    @Bean
+    public DataSource dataSource() {
+        return new DriverManagerDataSource(String.format(H2_URL, "jdbc-test"), "sa", "");
+    }
+
+    @Bean
+    public JdbcTemplate jdbcTemplate(DataSource dataSource) {
+        return new JdbcTemplate(dataSource);
+    }
+
+    @Bean
+    public PlatformTransactionManager transactionManager(DataSource dataSource) {
+        return new DataSourceTransactionManager(dataSource);
+    }
+
+    // Empties every table, children first
+    static void clear(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.update("DELETE FROM attendance");
+        jdbcTemplate.update("DELETE FROM class_session");
+        jdbcTemplate.update("DELETE FROM attendance_student_counter");
+        jdbcTemplate.update("DELETE FROM attendance_class_day_counter");
+    }
+}
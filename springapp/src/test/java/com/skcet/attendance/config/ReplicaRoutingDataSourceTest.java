@@ -0,0 +1,111 @@
+package com.skcet.attendance.config;
+
+import com.skcet.attendance.Entity.Attendance;
+import com.skcet.attendance.Entity.ClassSession;
+import com.skcet.attendance.Entity.StudentAttendanceCounter;
+import com.skcet.attendance.Repo.AttendanceCounterJdbcRepository;
+import com.skcet.attendance.Repo.AttendanceJdbcRepository;
+import com.skcet.attendance.Repo.ClassSessionJdbcRepository;
+import com.skcet.attendance.service.AttendanceStore;
+import com.skcet.attendance.service.JpaAttendanceStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+// Two unreplicated H2 databases, as in the 'local' profile: what a read returns shows which pool served it
+@DataJpaTest(properties = {
+        "spring.datasource.url=" + ReplicaRoutingDataSourceTest.PRIMARY_URL,
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "attendance.datasource.replica.url=" + ReplicaRoutingDataSourceTest.REPLICA_URL,
+        "attendance.datasource.replica.username=sa",
+        "attendance.datasource.replica.password=",
+        "spring.flyway.enabled=false",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({DataSourceRoutingConfig.class, JpaAttendanceStore.class, AttendanceJdbcRepository.class,
+        AttendanceCounterJdbcRepository.class, ClassSessionJdbcRepository.class})
+// The store's own transactions decide the route, not a test-managed one
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReplicaRoutingDataSourceTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;MODE=MySQL;DATABASE_TO_LOWER=TRUE;"
+            + "DB_CLOSE_DELAY=-1;INIT=RUNSCRIPT FROM 'classpath:db/h2/schema.sql'";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;"
+            + "DB_CLOSE_DELAY=-1;INIT=RUNSCRIPT FROM 'classpath:db/h2/schema.sql'";
+
+    private static final String STUDENT = "a@skcet.ac.in";
+    private static final LocalDate DAY = LocalDate.of(2024, 9, 16);
+    private static final String TERM = StudentAttendanceCounter.termOf(DAY);
+
+    @Autowired
+    private AttendanceStore store;
+
+    private final JdbcTemplate primary = new JdbcTemplate(new DriverManagerDataSource(PRIMARY_URL, "sa", ""));
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    @BeforeEach
+    void setUp() {
+        for (JdbcTemplate db : new JdbcTemplate[] {primary, replica}) {
+            db.update("DELETE FROM attendance");
+            db.update("DELETE FROM class_session");
+            db.update("DELETE FROM attendance_student_counter");
+            db.update("DELETE FROM attendance_class_day_counter");
+        }
+        // The replica lags: it has the session but only an absent mark and no counters
+        replica.update("INSERT INTO class_session (id, class_name, session_date, period, staff_id, staff_name) "
+                + "VALUES (1, 'CSE-A', ?, 3, 'S1', 'Staff')", DAY);
+        replica.update("INSERT INTO attendance (student_email, session_id, session_date, present) VALUES (?, 1, ?, FALSE)",
+                STUDENT, DAY);
+
+        long id = store.findOrCreateSession("CSE-A", DAY, (short) 3, "S1", "Staff");
+        Attendance row = new Attendance();
+        row.setStudentEmail(STUDENT);
+        row.setSession(new ClassSession(id, "CSE-A", DAY, (short) 3, "S1", "Staff"));
+        row.setPresent(true);
+        store.upsert(row);
+    }
+
+    @Test
+    void writesGoToThePrimary() {
+        assertEquals(1, (long) primary.queryForObject(
+                "SELECT COUNT(*) FROM attendance WHERE present = TRUE", Long.class));
+        assertEquals(0, (long) replica.queryForObject(
+                "SELECT COUNT(*) FROM attendance WHERE present = TRUE", Long.class));
+    }
+
+    @Test
+    void queryMethodReadsGoToTheReplica() {
+        AttendanceStore.Counts summary = store.summarizeStudent(STUDENT, DAY, DAY);
+        assertEquals(0, summary.getPresent());
+        assertEquals(1, summary.getAbsent());
+
+        assertFalse(store.findClassSessionPage("CSE-A", DAY, (short) 3, 0, 10).get(0).isPresent());
+        assertEquals(0, store.studentTermCounts(STUDENT, null, TERM).getTotal());
+        assertEquals(0, store.classDayCounts("CSE-A", DAY).getTotal());
+    }
+
+    @Test
+    void pinnedReadsGoToThePrimary() {
+        AttendanceStore.Counts summary =
+                ReplicaRoutingDataSource.onPrimary(() -> store.summarizeStudent(STUDENT, DAY, DAY));
+        assertEquals(1, summary.getPresent());
+        assertEquals(0, summary.getAbsent());
+
+        assertEquals(1, ReplicaRoutingDataSource.onPrimary(() -> store.studentTermCounts(STUDENT, null, TERM)).getPresent());
+        assertEquals(1, ReplicaRoutingDataSource.onPrimary(() -> store.classDayCounts("CSE-A", DAY)).getPresent());
+    }
+}
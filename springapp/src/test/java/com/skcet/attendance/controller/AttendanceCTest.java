@@ -0,0 +1,100 @@
+package com.skcet.attendance.controller;
+
+import com.skcet.attendance.dto.ClassAttendancePage;
+import com.skcet.attendance.service.AttendanceExportService;
+import com.skcet.attendance.service.AttendanceService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class AttendanceCTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 9, 16);
+
+    @Mock
+    private AttendanceService attendanceService;
+    @Mock
+    private AttendanceExportService attendanceExportService;
+    @InjectMocks
+    private AttendanceC controller;
+
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        mvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    // Periods are read the same way as in QR tokens, as labels or as plain numbers
+    @Test
+    void markAcceptsPeriodLabels() throws Exception {
+        when(attendanceService.markAttendance(anyString(), any(), any(), anyString(), any(), any(), anyBoolean()))
+                .thenReturn(true);
+
+        mvc.perform(post("/api/attendance/mark").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"studentEmail\":\"a@skcet.ac.in\",\"className\":\"CSE-A\","
+                                + "\"sessionDate\":\"2024-09-16\",\"period\":\"P3\",\"present\":true}"))
+                .andExpect(status().isOk());
+        mvc.perform(post("/api/attendance/mark").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"studentEmail\":\"b@skcet.ac.in\",\"className\":\"CSE-A\","
+                                + "\"sessionDate\":\"2024-09-16\",\"period\":3,\"present\":true}"))
+                .andExpect(status().isOk());
+
+        verify(attendanceService).markAttendance(eq("a@skcet.ac.in"), any(), any(), eq("CSE-A"), eq(DAY),
+                eq((short) 3), eq(true));
+        verify(attendanceService).markAttendance(eq("b@skcet.ac.in"), any(), any(), eq("CSE-A"), eq(DAY),
+                eq((short) 3), eq(true));
+    }
+
+    @Test
+    void markRejectsUnreadablePeriod() throws Exception {
+        mvc.perform(post("/api/attendance/mark").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"studentEmail\":\"a@skcet.ac.in\",\"className\":\"CSE-A\","
+                                + "\"sessionDate\":\"2024-09-16\",\"period\":\"lunch\",\"present\":true}"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(attendanceService);
+    }
+
+    @Test
+    void classListingAcceptsPeriodLabelsAndSetsCursor() throws Exception {
+        when(attendanceService.getClassAttendance("CSE-A", DAY, (short) 3, 0L, 2))
+                .thenReturn(new ClassAttendancePage(List.of(), 42L));
+
+        mvc.perform(get("/api/attendance/admin/class").param("className", "CSE-A").param("date", "2024-09-16")
+                        .param("period", "Period 3").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "42"));
+    }
+
+    @Test
+    void classListingRejectsUnreadablePeriod() throws Exception {
+        mvc.perform(get("/api/attendance/admin/class").param("className", "CSE-A").param("date", "2024-09-16")
+                        .param("period", "P0"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(attendanceService);
+    }
+}
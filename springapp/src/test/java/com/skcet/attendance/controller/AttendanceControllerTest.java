@@ -0,0 +1,77 @@
+package com.skcet.attendance.controller;
+
+import com.skcet.attendance.dto.AttendanceRecord;
+import com.skcet.attendance.service.AttendanceProjection;
+import com.skcet.attendance.service.FirestoreService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class AttendanceControllerTest {
+
+    private FirestoreService firestoreService;
+    private AttendanceProjection projection;
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        firestoreService = mock(FirestoreService.class);
+        projection = mock(AttendanceProjection.class);
+        mvc = MockMvcBuilders.standaloneSetup(new AttendanceController(firestoreService, projection)).build();
+    }
+
+    @Test
+    void statusListingIsPagedFromTheProjection() throws Exception {
+        when(projection.isReady()).thenReturn(true);
+        when(projection.getStatusPage("late", "r9", 2)).thenReturn(
+                new FirestoreService.AttendancePage(List.of(record("r8"), record("r7")), "r7"));
+
+        mvc.perform(get("/api/status-attendance").param("status", "late").param("after", "r9").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "r7"))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value("r8"));
+    }
+
+    // Served from Firestore with the same contract instead of 503 while the projection loads
+    @Test
+    void statusListingFallsBackToFirestore() throws Exception {
+        when(projection.isReady()).thenReturn(false);
+        when(firestoreService.getStatusPage("late", null, 1000)).thenReturn(
+                new FirestoreService.AttendancePage(List.of(record("r1")), null));
+
+        mvc.perform(get("/api/status-attendance").param("status", "late").param("limit", "50000"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andExpect(jsonPath("$[0].id").value("r1"));
+        verify(firestoreService).getStatusPage("late", null, 1000);
+    }
+
+    @Test
+    void unknownCursorIsBadRequest() throws Exception {
+        when(projection.isReady()).thenReturn(true);
+        when(projection.getStatusPage(any(), any(), anyInt())).thenThrow(new IllegalArgumentException("Unknown cursor"));
+
+        mvc.perform(get("/api/status-attendance").param("status", "late").param("after", "gone"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private static AttendanceRecord record(String id) {
+        return new AttendanceRecord(id, id + "@skcet.ac.in", id, "Class Attendance", "late",
+                LocalDateTime.of(2024, 9, 16, 9, 0), "s1", 0.7);
+    }
+}
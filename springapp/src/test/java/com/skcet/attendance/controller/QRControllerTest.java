@@ -0,0 +1,92 @@
+package com.skcet.attendance.controller;
+
+import com.skcet.attendance.dto.AttendanceInfo;
+import com.skcet.attendance.service.QRBatchService;
+import com.skcet.attendance.service.RedemptionIndex;
+import com.skcet.attendance.service.RotatingQrService;
+import com.skcet.attendance.service.ScanSessionStore;
+import com.skcet.attendance.service.ScanTicketService;
+import com.skcet.attendance.service.TokenKeyring;
+import com.skcet.attendance.service.TokenService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class QRControllerTest {
+
+    private RotatingQrService rotatingQrService;
+    private QRBatchService qrBatchService;
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        rotatingQrService = mock(RotatingQrService.class);
+        qrBatchService = mock(QRBatchService.class);
+        QRController controller = new QRController(mock(TokenService.class), rotatingQrService,
+                qrBatchService, mock(ScanSessionStore.class), mock(ScanTicketService.class),
+                mock(RedemptionIndex.class), mock(TokenKeyring.class));
+        mvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    // EventSource can only issue GET, so the class details come as query parameters
+    @Test
+    void streamOpensOnGetWithQueryParameters() throws Exception {
+        when(rotatingQrService.openStream(any(), any())).thenReturn(new SseEmitter());
+
+        mvc.perform(get("/api/qr/stream")
+                        .param("staffId", "S1").param("className", "CSE-A").param("sessionDate", "2024-09-16")
+                        .param("period", "P3").param("windowSeconds", "15"))
+                .andExpect(request().asyncStarted());
+
+        ArgumentCaptor<AttendanceInfo> info = ArgumentCaptor.forClass(AttendanceInfo.class);
+        verify(rotatingQrService).openStream(info.capture(), eq(15));
+        assertEquals("CSE-A", info.getValue().getClassName());
+        assertEquals("P3", info.getValue().getPeriod());
+    }
+
+    @Test
+    void streamIsNotMappedToPost() throws Exception {
+        mvc.perform(post("/api/qr/stream")).andExpect(status().isMethodNotAllowed());
+    }
+
+    @Test
+    void streamLimitAnswers503() throws Exception {
+        when(rotatingQrService.openStream(any(), any())).thenThrow(new IllegalStateException("full"));
+
+        mvc.perform(get("/api/qr/stream").param("className", "CSE-A"))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    void batchWithoutBodyIsBadRequest() throws Exception {
+        mvc.perform(post("/api/qr/generate/batch").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        mvc.perform(post("/api/qr/generate/batch").contentType(MediaType.APPLICATION_JSON).content("null"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(qrBatchService);
+    }
+
+    @Test
+    void batchWithNullEntryIsBadRequest() throws Exception {
+        mvc.perform(post("/api/qr/generate/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("[null]"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(qrBatchService);
+    }
+}
@@ -0,0 +1,78 @@
+package com.skcet.attendance.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentReference;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AttendanceRecordTest {
+
+    // Microseconds: Firestore keeps no finer precision
+    private static final LocalDateTime AT = LocalDateTime.of(2024, 9, 16, 9, 41, 7, 123_456_000);
+
+    @Test
+    void timestampIsStoredAsNativeTimestamp() throws Exception {
+        Map<?, ?> document = (Map<?, ?>) toFirestore(record());
+
+        assertInstanceOf(Timestamp.class, document.get("timestamp"));
+        assertEquals(AT.atZone(ZoneId.systemDefault()).toInstant().getEpochSecond(),
+                ((Timestamp) document.get("timestamp")).getSeconds());
+        assertFalse(document.containsKey("firestoreTimestamp"));
+    }
+
+    @Test
+    void roundTripsThroughTheFirestoreMapper() throws Exception {
+        AttendanceRecord read = fromFirestore(toFirestore(record()));
+
+        assertEquals(AT, read.getTimestamp());
+        assertEquals("a@skcet.ac.in", read.getEmail());
+        assertEquals("present", read.getStatus());
+        assertEquals(0.93, read.getConfidence());
+    }
+
+    // The REST API still returns the LocalDateTime
+    @Test
+    void jsonKeepsTheLocalDateTime() throws Exception {
+        ObjectMapper json = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        JsonNode node = json.valueToTree(record());
+
+        assertEquals("2024-09-16T09:41:07.123456", node.get("timestamp").asText());
+        assertTrue(node.path("firestoreTimestamp").isMissingNode());
+    }
+
+    private static AttendanceRecord record() {
+        return new AttendanceRecord("r1", "a@skcet.ac.in", "a@skcet.ac.in", "Class Attendance", "present",
+                AT, "s1", 0.93);
+    }
+
+    // Firestore's bean mapper, used by set() and toObject(), is package-private
+    private static Object toFirestore(AttendanceRecord record) throws Exception {
+        Method method = mapper().getDeclaredMethod("convertToPlainJavaTypes", Object.class);
+        method.setAccessible(true);
+        return method.invoke(null, record);
+    }
+
+    private static AttendanceRecord fromFirestore(Object document) throws Exception {
+        Method method = mapper().getDeclaredMethod("convertToCustomClass", Object.class, Class.class,
+                DocumentReference.class);
+        method.setAccessible(true);
+        return (AttendanceRecord) method.invoke(null, document, AttendanceRecord.class, null);
+    }
+
+    private static Class<?> mapper() throws ClassNotFoundException {
+        return Class.forName("com.google.cloud.firestore.CustomClassMapper");
+    }
+}
@@ -0,0 +1,77 @@
+package com.skcet.attendance.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skcet.attendance.Entity.Attendance;
+import com.skcet.attendance.Entity.ClassSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AttendanceExportServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 9, 16);
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private InMemoryAttendanceStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryAttendanceStore();
+        long id = store.findOrCreateSession("CSE-A", DAY, (short) 1, "S1", "Staff");
+        Attendance row = new Attendance();
+        row.setStudentEmail("a@skcet.ac.in");
+        row.setSession(new ClassSession(id, "CSE-A", DAY, (short) 1, "S1", "Staff"));
+        row.setPresent(true);
+        store.upsert(row);
+    }
+
+    // The memory and firestore stores run without a database, so there is no transaction manager
+    @Test
+    void exportsWithoutATransactionManager() throws IOException {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        AttendanceExportService exports = new AttendanceExportService(store, objectMapper,
+                beans.getBeanProvider(PlatformTransactionManager.class));
+
+        assertEquals(1, report(exports).size());
+    }
+
+    @Test
+    void exportRunsInAReadOnlyTransaction() throws IOException {
+        PlatformTransactionManager manager = mock(PlatformTransactionManager.class);
+        when(manager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("transactionManager", manager);
+        AttendanceExportService exports = new AttendanceExportService(store, objectMapper,
+                beans.getBeanProvider(PlatformTransactionManager.class));
+
+        assertEquals(1, report(exports).size());
+
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(manager).getTransaction(definition.capture());
+        assertTrue(definition.getValue().isReadOnly());
+        verify(manager).commit(any());
+    }
+
+    private List<String> report(AttendanceExportService exports) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exports.writeClassReport(List.of("CSE-A"), DAY, DAY, out);
+        return out.toString(StandardCharsets.UTF_8).lines().toList();
+    }
+}
@@ -0,0 +1,126 @@
+package com.skcet.attendance.service;
+
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentChange;
+import com.google.cloud.firestore.EventListener;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.ListenerRegistration;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+import com.skcet.attendance.dto.AttendanceRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AttendanceProjectionTest {
+
+    private static final LocalDateTime T1 = LocalDateTime.of(2024, 9, 16, 9, 0);
+    private static final LocalDateTime T2 = LocalDateTime.of(2024, 9, 16, 10, 0);
+
+    private AttendanceProjection projection;
+    private EventListener<QuerySnapshot> listener;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        Firestore firestore = mock(Firestore.class);
+        CollectionReference attendance = mock(CollectionReference.class);
+        when(firestore.collection("attendance")).thenReturn(attendance);
+        when(attendance.addSnapshotListener(any(EventListener.class))).thenReturn(mock(ListenerRegistration.class));
+
+        projection = new AttendanceProjection(firestore, true, 0, 5000);
+        projection.start();
+        ArgumentCaptor<EventListener<QuerySnapshot>> captor = ArgumentCaptor.forClass(EventListener.class);
+        verify(attendance).addSnapshotListener(captor.capture());
+        listener = captor.getValue();
+    }
+
+    // Same order as the Firestore fallback: timestamp desc, then document id desc
+    @Test
+    void ordersByTimestampThenIdDescending() {
+        load(record("a", T1, "present"), record("c", T1, "present"), record("b", T2, "present"),
+                record("d", T1, "late"));
+
+        assertEquals(List.of("b", "d", "c", "a"), ids(projection.getPage(null, 10).getRecords()));
+        assertEquals(List.of("b", "c", "a"), ids(projection.getStatusPage("present", null, 10).getRecords()));
+    }
+
+    @Test
+    void statusPagesFollowTheCursor() {
+        List<AttendanceRecord> records = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            records.add(record(String.format("r%02d", i), T1.plusMinutes(i % 7), i % 5 == 0 ? "late" : "present"));
+        }
+        load(records.toArray(new AttendanceRecord[0]));
+
+        List<String> expected = records.stream().filter(r -> r.getStatus().equals("present"))
+                .sorted(AttendanceProjection.NEWEST_FIRST).map(AttendanceRecord::getId).collect(Collectors.toList());
+        List<String> seen = new ArrayList<>();
+        FirestoreService.AttendancePage page = projection.getStatusPage("present", null, 6);
+        seen.addAll(ids(page.getRecords()));
+        while (page.getNextCursor() != null) {
+            page = projection.getStatusPage("present", page.getNextCursor(), 6);
+            seen.addAll(ids(page.getRecords()));
+        }
+
+        assertEquals(20, expected.size());
+        assertEquals(expected, seen);
+    }
+
+    @Test
+    void unknownStatusIsAnEmptyLastPage() {
+        load(record("a", T1, "present"));
+
+        FirestoreService.AttendancePage page = projection.getStatusPage("absent", null, 10);
+        assertEquals(0, page.getRecords().size());
+        assertNull(page.getNextCursor());
+        assertThrows(IllegalArgumentException.class, () -> projection.getStatusPage("present", "missing", 10));
+    }
+
+    // Firestore's orderBy("timestamp") leaves such documents out, so the projection does too
+    @Test
+    void skipsRecordsWithoutTimestamp() {
+        load(record("a", T1, "present"), record("b", null, "present"));
+
+        assertEquals(List.of("a"), ids(projection.getPage(null, 10).getRecords()));
+        assertEquals(1L, projection.getStats().get("unreadableDocuments"));
+    }
+
+    private void load(AttendanceRecord... records) {
+        List<DocumentChange> changes = new ArrayList<>();
+        for (AttendanceRecord record : records) {
+            QueryDocumentSnapshot document = mock(QueryDocumentSnapshot.class);
+            when(document.getId()).thenReturn(record.getId());
+            when(document.toObject(AttendanceRecord.class)).thenReturn(record);
+            DocumentChange change = mock(DocumentChange.class);
+            when(change.getType()).thenReturn(DocumentChange.Type.ADDED);
+            when(change.getDocument()).thenReturn(document);
+            changes.add(change);
+        }
+        QuerySnapshot snapshot = mock(QuerySnapshot.class);
+        when(snapshot.getDocumentChanges()).thenReturn(changes);
+        when(snapshot.size()).thenReturn(changes.size());
+        listener.onEvent(snapshot, null);
+    }
+
+    private static AttendanceRecord record(String id, LocalDateTime timestamp, String status) {
+        return new AttendanceRecord(id, id + "@skcet.ac.in", id, "Class Attendance", status, timestamp, "s1", 0.9);
+    }
+
+    private static List<String> ids(List<AttendanceRecord> records) {
+        return records.stream().map(AttendanceRecord::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,50 @@
+package com.skcet.attendance.service;
+
+import com.skcet.attendance.Entity.ClassSession;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AttendanceQueryCacheTest {
+
+    private static final String STUDENT = "a@skcet.ac.in";
+    private static final LocalDate DAY = LocalDate.of(2024, 9, 16);
+    private static final ClassSession SESSION = new ClassSession(1L, "CSE-A", DAY, (short) 3, "S1", "Staff");
+
+    // Stands in for the shared database behind both instances
+    private final AtomicInteger present = new AtomicInteger();
+
+    @Test
+    void writeInvalidatesTheLocalEntry() {
+        AttendanceQueryCache cache = new AttendanceQueryCache(30, 1000, 0);
+        assertEquals(0, read(cache));
+
+        present.incrementAndGet();
+        cache.recordWrite(STUDENT, SESSION);
+
+        assertEquals(1, read(cache));
+    }
+
+    // Invalidation is not broadcast: another instance lags by at most the TTL
+    @Test
+    void otherInstanceIsStaleUntilTheTtl() throws InterruptedException {
+        AttendanceQueryCache writer = new AttendanceQueryCache(1, 1000, 0);
+        AttendanceQueryCache other = new AttendanceQueryCache(1, 1000, 0);
+        assertEquals(0, read(other));
+
+        present.incrementAndGet();
+        writer.recordWrite(STUDENT, SESSION);
+
+        assertEquals(0, read(other));
+        Thread.sleep(1100);
+        assertEquals(1, read(other));
+    }
+
+    private int read(AttendanceQueryCache cache) {
+        return cache.studentStats(STUDENT, DAY, DAY, () -> Map.of("present", present.get())).get("present");
+    }
+}
@@ -0,0 +1,122 @@
+package com.skcet.attendance.service;
+
+import com.skcet.attendance.Entity.Attendance;
+import com.skcet.attendance.Entity.ClassSession;
+import com.skcet.attendance.dto.ClassAttendancePage;
+import com.skcet.attendance.dto.ClassAttendanceRow;
+import com.skcet.attendance.dto.RollCallRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class AttendanceServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 9, 16);
+
+    private InMemoryAttendanceStore store;
+    private AttendanceWriter writer;
+    private ClassSessionResolver sessions;
+    private AttendanceService service;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryAttendanceStore();
+        TokenService tokenService = new TokenService(new TokenKeyring("1:test-secret", 1), 300_000, 3_600_000);
+        writer = new AttendanceWriter(store, false, 200, 5, 10_000);
+        sessions = new ClassSessionResolver(store, 1000);
+        service = new AttendanceService(store, tokenService, new RedemptionIndex(), writer, sessions,
+                new AttendanceQueryCache(30, 1000, 0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        writer.shutdown();
+    }
+
+    // A limit above the page cap still gets a cursor, so no rows are silently dropped
+    @Test
+    void pagesPastTheCapFollowTheCursor() {
+        markStudents(2500);
+
+        ClassAttendancePage first = service.getClassAttendance("CSE-A", DAY, (short) 3, 0, 5000);
+        assertEquals(1000, first.getRows().size());
+        assertNotNull(first.getNextCursor());
+
+        Set<String> seen = new HashSet<>();
+        ClassAttendancePage page = first;
+        int pages = 1;
+        while (true) {
+            for (ClassAttendanceRow row : page.getRows()) {
+                seen.add(row.getStudentEmail());
+            }
+            if (page.getNextCursor() == null) {
+                break;
+            }
+            page = service.getClassAttendance("CSE-A", DAY, (short) 3, page.getNextCursor(), 5000);
+            pages++;
+        }
+        assertEquals(2500, seen.size());
+        assertEquals(3, pages);
+    }
+
+    @Test
+    void lastFullPageStillHasCursorThenEmptyPage() {
+        markStudents(20);
+
+        ClassAttendancePage page = service.getClassAttendance("CSE-A", DAY, (short) 3, 0, 10);
+        page = service.getClassAttendance("CSE-A", DAY, (short) 3, page.getNextCursor(), 10);
+        assertEquals(10, page.getRows().size());
+        assertNotNull(page.getNextCursor());
+
+        page = service.getClassAttendance("CSE-A", DAY, (short) 3, page.getNextCursor(), 10);
+        assertEquals(0, page.getRows().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void unpagedListingHasNoCursor() {
+        markStudents(1500);
+
+        ClassAttendancePage page = service.getClassAttendance("CSE-A", DAY, (short) 3, 0, null);
+        assertEquals(1500, page.getRows().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void rollCallReadsPeriodLabels() {
+        RollCallRequest.Entry entry = new RollCallRequest.Entry();
+        entry.setStudentEmail("a@skcet.ac.in");
+        entry.setPresent(true);
+        RollCallRequest request = new RollCallRequest();
+        request.setClassName("CSE-A");
+        request.setSessionDate(DAY);
+        request.setPeriod("P3");
+        request.setEntries(List.of(entry));
+
+        assertEquals(1, service.rollCall(request).getInserted());
+        assertEquals(1, service.getClassAttendance("CSE-A", DAY, (short) 3, 0, null).getRows().size());
+    }
+
+    private void markStudents(int count) {
+        ClassSession session = sessions.resolve("CSE-A", DAY, (short) 3, "S1", "Staff");
+        List<Attendance> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Attendance row = new Attendance();
+            row.setStudentEmail("s" + i + "@skcet.ac.in");
+            row.setSession(session);
+            row.setPresent(i % 4 != 0);
+            rows.add(row);
+        }
+        store.upsertAll(rows);
+    }
+}
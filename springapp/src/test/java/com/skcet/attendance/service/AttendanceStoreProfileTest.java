@@ -0,0 +1,61 @@
+package com.skcet.attendance.service;
+
+import com.skcet.attendance.Repo.AttendanceCounterJdbcRepository;
+import com.skcet.attendance.Repo.AttendanceJdbcRepository;
+import com.skcet.attendance.Repo.ClassSessionJdbcRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The 'memory' profile starts without a database: no DataSource, JPA, Flyway or JDBC repositories
+@SpringBootTest(classes = AttendanceStoreProfileTest.App.class)
+@ActiveProfiles("memory")
+class AttendanceStoreProfileTest {
+
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @Import({InMemoryAttendanceStore.class, JpaAttendanceStore.class, AttendanceJdbcRepository.class,
+            AttendanceCounterJdbcRepository.class, ClassSessionJdbcRepository.class, AttendanceExportService.class})
+    static class App {
+    }
+
+    @Autowired
+    private ApplicationContext context;
+    @Autowired
+    private AttendanceStore store;
+    @Autowired
+    private AttendanceExportService exports;
+
+    @Test
+    void startsWithoutADatabase() {
+        assertInstanceOf(InMemoryAttendanceStore.class, store);
+        for (Class<?> type : List.of(DataSource.class, EntityManagerFactory.class, Flyway.class,
+                AttendanceJdbcRepository.class, AttendanceCounterJdbcRepository.class, ClassSessionJdbcRepository.class)) {
+            assertTrue(context.getBeansOfType(type).isEmpty(), type.getSimpleName());
+        }
+    }
+
+    @Test
+    void exportsWithoutATransactionManager() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exports.writeClassExport("CSE-A", LocalDate.of(2024, 9, 1), LocalDate.of(2024, 9, 30), out);
+        assertEquals(0, out.size());
+    }
+}
@@ -0,0 +1,71 @@
+package com.skcet.attendance.service;
+
+import com.skcet.attendance.Entity.Attendance;
+import com.skcet.attendance.Repo.AttendanceJdbcRepository.UpsertResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AttendanceWriterTest {
+
+    private final AttendanceStore store = mock(AttendanceStore.class);
+    private AttendanceWriter writer;
+
+    @AfterEach
+    void tearDown() {
+        writer.shutdown();
+    }
+
+    // With group commit, save() returns only after the batch's upsertAll (and so its commit) has returned
+    @Test
+    void groupCommitAcknowledgesAfterTheCommit() throws Exception {
+        CountDownLatch committing = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        when(store.upsertAll(anyList())).thenAnswer(inv -> {
+            committing.countDown();
+            assertTrue(commit.await(5, TimeUnit.SECONDS));
+            return Collections.nCopies(inv.<List<?>>getArgument(0).size(), UpsertResult.INSERTED);
+        });
+        writer = new AttendanceWriter(store, true, 200, 1, 100);
+
+        CompletableFuture<UpsertResult> saved = CompletableFuture.supplyAsync(() -> writer.save(new Attendance()));
+        assertTrue(committing.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertFalse(saved.isDone());
+
+        commit.countDown();
+        assertEquals(UpsertResult.INSERTED, saved.get(5, TimeUnit.SECONDS));
+    }
+
+    // A store that returns fewer results than rows must not acknowledge the rows it left out
+    @Test
+    void rowWithoutAResultFails() {
+        when(store.upsertAll(anyList())).thenReturn(List.of());
+        writer = new AttendanceWriter(store, true, 200, 1, 100);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> writer.save(new Attendance()));
+        assertTrue(e.getCause() instanceof IllegalStateException, String.valueOf(e.getCause()));
+    }
+
+    @Test
+    void failedCommitFailsTheSave() {
+        when(store.upsertAll(anyList())).thenThrow(new IllegalStateException("deadlock"));
+        writer = new AttendanceWriter(store, true, 200, 1, 100);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> writer.save(new Attendance()));
+        assertEquals("deadlock", e.getCause().getMessage());
+    }
+}
@@ -0,0 +1,223 @@
+package com.skcet.attendance.service;
+
+import com.google.api.core.ApiFutures;
+import com.google.cloud.NoCredentials;
+import com.google.cloud.firestore.CollectionGroup;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldPath;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreOptions;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+import com.google.cloud.firestore.SetOptions;
+import com.google.cloud.firestore.Transaction;
+import com.google.cloud.firestore.WriteBatch;
+import com.skcet.attendance.Entity.Attendance;
+import com.skcet.attendance.Entity.ClassSession;
+import com.skcet.attendance.Entity.StudentAttendanceCounter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Document references come from a real (never connected) client so that paths are real; every call is mocked
+class FirestoreAttendanceStoreTest {
+
+    private static final int SHARDS = 4;
+    private static final String STUDENT = "a@skcet.ac.in";
+    private static final LocalDate DAY = LocalDate.of(2024, 9, 16);
+    private static final String TERM = StudentAttendanceCounter.termOf(DAY);
+    private static final String STUDENT_COUNTER = "attendance_student_counter/a%40skcet.ac.in|CSE-A|"
+            + URLEncoder.encode(TERM, StandardCharsets.UTF_8);
+    private static final String CLASS_DAY_COUNTER = "attendance_class_day_counter/CSE-A|2024-09-16";
+
+    private Firestore client;
+    private Firestore firestore;
+    private FirestoreAttendanceStore store;
+
+    @BeforeEach
+    void setUp() {
+        client = FirestoreOptions.newBuilder().setProjectId("test").setEmulatorHost("localhost:8080")
+                .setCredentials(NoCredentials.getInstance()).build().getService();
+        firestore = mock(Firestore.class);
+        counters("attendance_student_counter");
+        counters("attendance_class_day_counter");
+        store = new FirestoreAttendanceStore(firestore, SHARDS);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        client.close();
+    }
+
+    // Both counters of a mark go to one shard, picked per transaction
+    @Test
+    @SuppressWarnings("unchecked")
+    void upsertIncrementsOneShardPerCounter() {
+        CollectionReference rows = mock(CollectionReference.class);
+        when(rows.document(anyString())).thenAnswer(inv -> client.collection("class_attendance")
+                .document(inv.getArgument(0)));
+        when(firestore.collection("class_attendance")).thenReturn(rows);
+        Transaction tx = mock(Transaction.class);
+        DocumentSnapshot missing = mock(DocumentSnapshot.class);
+        when(tx.getAll(any(DocumentReference[].class))).thenReturn(ApiFutures.immediateFuture(List.of(missing)));
+        when(firestore.runTransaction(any(Transaction.Function.class))).thenAnswer(inv ->
+                ApiFutures.immediateFuture(inv.<Transaction.Function<?>>getArgument(0).updateCallback(tx)));
+
+        store.upsert(row(1L, true));
+
+        ArgumentCaptor<DocumentReference> written = ArgumentCaptor.forClass(DocumentReference.class);
+        verify(tx, times(2)).set(written.capture(), anyMap(), any(SetOptions.class));
+        List<String> paths = written.getAllValues().stream().map(DocumentReference::getPath).sorted()
+                .collect(Collectors.toList());
+        String shard = paths.get(0).substring(paths.get(0).lastIndexOf('/') + 1);
+        assertTrue(Integer.parseInt(shard) < SHARDS, shard);
+        assertEquals(List.of(CLASS_DAY_COUNTER + "/shards/" + shard, STUDENT_COUNTER + "/shards/" + shard), paths);
+    }
+
+    @Test
+    void readsSumTheShards() {
+        when(firestore.getAll(any(DocumentReference[].class))).thenAnswer(inv -> {
+            List<DocumentSnapshot> shards = new ArrayList<>();
+            for (Object ref : (Object[]) inv.getRawArguments()[0]) {
+                String id = ((DocumentReference) ref).getId();
+                shards.add(id.equals("0") ? counter(DocumentSnapshot.class, 2, 1)
+                        : id.equals("3") ? counter(DocumentSnapshot.class, 1, 0)
+                        : mock(DocumentSnapshot.class));
+            }
+            return ApiFutures.immediateFuture(shards);
+        });
+
+        assertCounts(3, 1, store.classDayCounts("CSE-A", DAY));
+        assertCounts(3, 1, store.studentTermCounts(STUDENT, "CSE-A", TERM));
+
+        ArgumentCaptor<DocumentReference[]> read = ArgumentCaptor.forClass(DocumentReference[].class);
+        verify(firestore, times(2)).getAll(read.capture());
+        assertEquals(List.of(CLASS_DAY_COUNTER + "/shards/0", CLASS_DAY_COUNTER + "/shards/1",
+                        CLASS_DAY_COUNTER + "/shards/2", CLASS_DAY_COUNTER + "/shards/3"),
+                Arrays.stream(read.getAllValues().get(0)).map(DocumentReference::getPath).collect(Collectors.toList()));
+    }
+
+    // Without a class: the shards of all the student's counters for the term, through the collection group
+    @Test
+    void termCountsOverAllClassesSumEveryShard() {
+        CollectionGroup shards = mock(CollectionGroup.class);
+        Query query = mock(Query.class);
+        QuerySnapshot snapshot = mock(QuerySnapshot.class);
+        when(firestore.collectionGroup("shards")).thenReturn(shards);
+        when(shards.whereEqualTo("studentEmail", STUDENT)).thenReturn(query);
+        when(query.whereEqualTo("term", TERM)).thenReturn(query);
+        when(query.get()).thenReturn(ApiFutures.immediateFuture(snapshot));
+        List<QueryDocumentSnapshot> found = List.of(counter(QueryDocumentSnapshot.class, 2, 0),
+                counter(QueryDocumentSnapshot.class, 1, 1), counter(QueryDocumentSnapshot.class, 0, 3));
+        when(snapshot.getDocuments()).thenReturn(found);
+
+        assertCounts(3, 4, store.studentTermCounts(STUDENT, null, TERM));
+    }
+
+    // Totals go to shard 0; other shards, counters without rows and pre-sharding documents are deleted
+    @Test
+    void rebuildWritesShardZeroAndClearsTheRest() {
+        counters("attendance_student_counter", "stale");
+        counters("attendance_class_day_counter", "CSE-A|2024-09-16");
+        CollectionReference rows = mock(CollectionReference.class);
+        Query byId = mock(Query.class);
+        QuerySnapshot page = mock(QuerySnapshot.class);
+        when(firestore.collection("class_attendance")).thenReturn(rows);
+        when(rows.orderBy(any(FieldPath.class))).thenReturn(byId);
+        when(byId.limit(500)).thenReturn(byId);
+        when(byId.get()).thenReturn(ApiFutures.immediateFuture(page));
+        List<QueryDocumentSnapshot> found = List.of(stored(true), stored(false));
+        when(page.getDocuments()).thenReturn(found);
+        WriteBatch batch = mock(WriteBatch.class);
+        when(firestore.batch()).thenReturn(batch);
+        when(batch.commit()).thenReturn(ApiFutures.immediateFuture(List.of()));
+
+        assertEquals(2, store.rebuildCounters());
+
+        verify(batch).set(eq(doc(STUDENT_COUNTER + "/shards/0")), eq(Map.<String, Object>of(
+                "studentEmail", STUDENT, "className", "CSE-A", "term", TERM, "presentCount", 1L, "absentCount", 1L)));
+        verify(batch).set(eq(doc(CLASS_DAY_COUNTER + "/shards/0")), eq(Map.<String, Object>of(
+                "className", "CSE-A", "sessionDate", "2024-09-16", "presentCount", 1L, "absentCount", 1L)));
+        ArgumentCaptor<DocumentReference> deleted = ArgumentCaptor.forClass(DocumentReference.class);
+        verify(batch, atLeastOnce()).delete(deleted.capture());
+        Set<String> expected = Set.of(
+                "attendance_student_counter/stale",
+                "attendance_student_counter/stale/shards/0", "attendance_student_counter/stale/shards/1",
+                "attendance_student_counter/stale/shards/2", "attendance_student_counter/stale/shards/3",
+                STUDENT_COUNTER + "/shards/1", STUDENT_COUNTER + "/shards/2", STUDENT_COUNTER + "/shards/3",
+                CLASS_DAY_COUNTER,
+                CLASS_DAY_COUNTER + "/shards/1", CLASS_DAY_COUNTER + "/shards/2", CLASS_DAY_COUNTER + "/shards/3");
+        List<String> paths = deleted.getAllValues().stream().map(DocumentReference::getPath).collect(Collectors.toList());
+        assertEquals(expected.size(), paths.size());
+        assertEquals(expected, Set.copyOf(paths));
+        verify(batch).commit();
+    }
+
+    private void counters(String name, String... listed) {
+        CollectionReference counters = mock(CollectionReference.class);
+        when(counters.document(anyString())).thenAnswer(inv -> client.collection(name).document(inv.getArgument(0)));
+        when(counters.listDocuments()).thenReturn(Arrays.stream(listed)
+                .map(id -> client.collection(name).document(id)).collect(Collectors.toList()));
+        when(firestore.collection(name)).thenReturn(counters);
+    }
+
+    private DocumentReference doc(String path) {
+        return client.document(path);
+    }
+
+    private static <T extends DocumentSnapshot> T counter(Class<T> type, long present, long absent) {
+        T counter = mock(type);
+        when(counter.exists()).thenReturn(true);
+        when(counter.getLong("presentCount")).thenReturn(present);
+        when(counter.getLong("absentCount")).thenReturn(absent);
+        return counter;
+    }
+
+    private static QueryDocumentSnapshot stored(boolean present) {
+        QueryDocumentSnapshot row = mock(QueryDocumentSnapshot.class);
+        when(row.getString("className")).thenReturn("CSE-A");
+        when(row.getString("studentEmail")).thenReturn(STUDENT);
+        when(row.getString("sessionDate")).thenReturn(DAY.toString());
+        when(row.getBoolean("present")).thenReturn(present);
+        return row;
+    }
+
+    private static Attendance row(long sessionId, boolean present) {
+        Attendance row = new Attendance();
+        row.setStudentEmail(STUDENT);
+        row.setSession(new ClassSession(sessionId, "CSE-A", DAY, (short) 1, "S1", "Staff"));
+        row.setPresent(present);
+        return row;
+    }
+
+    private static void assertCounts(long present, long absent, AttendanceStore.Counts counts) {
+        assertEquals(present, counts.getPresent());
+        assertEquals(absent, counts.getAbsent());
+    }
+}
@@ -0,0 +1,157 @@
+package com.skcet.attendance.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.api.core.ApiFutures;
+import com.google.api.gax.rpc.ApiException;
+import com.google.api.gax.rpc.StatusCode;
+import com.google.cloud.NoCredentials;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreOptions;
+import com.google.cloud.firestore.WriteBatch;
+import com.skcet.attendance.dto.AttendanceRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FirestoreServiceTest {
+
+    private static final LocalDateTime AT = LocalDateTime.of(2024, 9, 16, 9, 0);
+
+    private Firestore client;
+    private FirestoreService service;
+    // Attendance documents already in the (fake) database, and the batches committed so far
+    private final Set<String> stored = new HashSet<>();
+    private final List<List<String>> commits = new ArrayList<>();
+
+    // Document references come from a real, never connected client; batches are a fake honouring create()
+    @BeforeEach
+    void setUp() {
+        client = FirestoreOptions.newBuilder().setProjectId("test").setEmulatorHost("localhost:8080")
+                .setCredentials(NoCredentials.getInstance()).build().getService();
+        Firestore firestore = mock(Firestore.class);
+        when(firestore.collection(anyString())).thenAnswer(inv -> client.collection(inv.getArgument(0)));
+        when(firestore.batch()).thenAnswer(inv -> fakeBatch());
+        service = new FirestoreService(firestore, new ObjectMapper(), 4, 200, 10, 5000);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        service.shutdown();
+        client.close();
+    }
+
+    // Same token and student on any instance: same document id
+    @Test
+    void attendanceIdIsPerTokenAndStudent() {
+        assertEquals(FirestoreService.attendanceId("r1", "a@skcet.ac.in"),
+                FirestoreService.attendanceId("r1", "A@skcet.ac.in"));
+        assertNotEquals(FirestoreService.attendanceId("r1", "a@skcet.ac.in"),
+                FirestoreService.attendanceId("r1", "b@skcet.ac.in"));
+        assertNotEquals(FirestoreService.attendanceId("r1", "a@skcet.ac.in"),
+                FirestoreService.attendanceId("r2", "a@skcet.ac.in"));
+    }
+
+    @Test
+    void newRecordsAreCreatedInOneBatch() {
+        List<AttendanceRecord> records = List.of(record("a"), record("b"));
+
+        assertEquals(records, service.commitAttendance(records));
+        assertEquals(1, commits.size());
+        assertEquals(Set.of("a", "b"), stored);
+    }
+
+    // A record written earlier (e.g. through another instance) is reported as null; the rest still land
+    @Test
+    void existingRecordIsNotWrittenTwice() {
+        stored.add("b");
+        AttendanceRecord a = record("a");
+        AttendanceRecord c = record("c");
+
+        List<AttendanceRecord> results = service.commitAttendance(List.of(a, record("b"), c));
+
+        assertSame(a, results.get(0));
+        assertNull(results.get(1));
+        assertSame(c, results.get(2));
+        assertEquals(Set.of("a", "b", "c"), stored);
+        // The rejected batch wrote nothing, then one commit per record that could be created
+        assertEquals(List.of(List.of("a"), List.of("c")), commits);
+    }
+
+    @Test
+    void redemptionSavedTwiceCompletesWithNull() throws Exception {
+        assertEquals(FirestoreService.attendanceId("r1", "a@skcet.ac.in"),
+                service.saveAttendance("a@skcet.ac.in", "s1", 0.9, "r1").get().getId());
+        assertNull(service.saveAttendance("a@skcet.ac.in", "s2", 0.9, "r1").get());
+    }
+
+    private WriteBatch fakeBatch() {
+        WriteBatch batch = mock(WriteBatch.class);
+        List<String> created = new ArrayList<>();
+        when(batch.create(any(DocumentReference.class), any(Object.class))).thenAnswer(inv -> {
+            created.add(inv.<DocumentReference>getArgument(0).getId());
+            return batch;
+        });
+        when(batch.commit()).thenAnswer(inv -> {
+            if (created.stream().anyMatch(stored::contains)) {
+                ApiException exists = mock(ApiException.class);
+                StatusCode code = mock(StatusCode.class);
+                when(code.getCode()).thenReturn(StatusCode.Code.ALREADY_EXISTS);
+                when(exists.getStatusCode()).thenReturn(code);
+                return ApiFutures.immediateFailedFuture(exists);
+            }
+            stored.addAll(created);
+            commits.add(created);
+            return ApiFutures.immediateFuture(List.of());
+        });
+        return batch;
+    }
+
+    private static AttendanceRecord record(String id) {
+        return new AttendanceRecord(id, id + "@skcet.ac.in", id + "@skcet.ac.in", "Class Attendance", "present",
+                AT, "s1", 0.9);
+    }
+
+    // The shape the bean mapper gave a LocalDateTime before records stored Timestamps
+    @Test
+    void readsLegacyTimestampMaps() {
+        Map<String, Object> legacy = new HashMap<>();
+        legacy.put("year", 2024L);
+        legacy.put("monthValue", 9L);
+        legacy.put("month", "SEPTEMBER");
+        legacy.put("dayOfMonth", 16L);
+        legacy.put("dayOfWeek", "MONDAY");
+        legacy.put("dayOfYear", 260L);
+        legacy.put("hour", 9L);
+        legacy.put("minute", 41L);
+        legacy.put("second", 7L);
+        legacy.put("nano", 123_456_000L);
+        legacy.put("chronology", Map.of("id", "ISO", "calendarType", "iso8601"));
+
+        assertEquals(LocalDateTime.of(2024, 9, 16, 9, 41, 7, 123_456_000), FirestoreService.legacyDateTime(legacy));
+    }
+
+    @Test
+    void ignoresAnythingElse() {
+        assertNull(FirestoreService.legacyDateTime(null));
+        assertNull(FirestoreService.legacyDateTime("2024-09-16T09:41:07"));
+        assertNull(FirestoreService.legacyDateTime(Map.of("year", 2024L)));
+    }
+}
@@ -0,0 +1,88 @@
+package com.skcet.attendance.service;
+
+import com.skcet.attendance.Entity.Attendance;
+import com.skcet.attendance.Entity.ClassSession;
+import com.skcet.attendance.dto.StudentAttendanceReportRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class InMemoryAttendanceStoreTest {
+
+    private static final LocalDate FROM = LocalDate.of(2024, 9, 1);
+    private static final LocalDate TO = LocalDate.of(2024, 9, 30);
+
+    private InMemoryAttendanceStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryAttendanceStore();
+    }
+
+    // QR marks write only present rows: sessions without a row are absences
+    @Test
+    void reportCountsSessionsHeldNotRowsWritten() {
+        ClassSession first = session("CSE-A", LocalDate.of(2024, 9, 2), (short) 1);
+        ClassSession second = session("CSE-A", LocalDate.of(2024, 9, 2), (short) 2);
+        session("CSE-A", LocalDate.of(2024, 9, 3), (short) 1);
+        ClassSession fourth = session("CSE-A", LocalDate.of(2024, 9, 4), (short) 1);
+        ClassSession outside = session("CSE-A", LocalDate.of(2024, 10, 1), (short) 1);
+        store.upsertAll(List.of(
+                row("a@skcet.ac.in", first, true), row("a@skcet.ac.in", second, true),
+                row("a@skcet.ac.in", outside, true),
+                row("b@skcet.ac.in", fourth, true), row("b@skcet.ac.in", second, false)));
+
+        List<StudentAttendanceReportRow> report = report("CSE-A");
+
+        assertEquals(2, report.size());
+        assertRow(report.get(0), "a@skcet.ac.in", 2, 2, 4, 50.0);
+        assertRow(report.get(1), "b@skcet.ac.in", 1, 3, 4, 25.0);
+    }
+
+    @Test
+    void reportDenominatorIsPerClass() {
+        ClassSession a = session("CSE-A", LocalDate.of(2024, 9, 2), (short) 1);
+        session("CSE-A", LocalDate.of(2024, 9, 2), (short) 2);
+        ClassSession b = session("CSE-B", LocalDate.of(2024, 9, 2), (short) 1);
+        store.upsertAll(List.of(row("a@skcet.ac.in", a, true), row("a@skcet.ac.in", b, true)));
+
+        List<StudentAttendanceReportRow> report = report("CSE-B", "CSE-A");
+
+        assertEquals(List.of("CSE-A", "CSE-B"),
+                report.stream().map(StudentAttendanceReportRow::getClassName).collect(Collectors.toList()));
+        assertEquals(2, report.get(0).getTotal());
+        assertEquals(1, report.get(1).getTotal());
+        assertEquals(100.0, report.get(1).getPercentage());
+    }
+
+    private List<StudentAttendanceReportRow> report(String... classNames) {
+        return store.streamClassReport(List.of(classNames), FROM, TO).collect(Collectors.toList());
+    }
+
+    private ClassSession session(String className, LocalDate day, short period) {
+        long id = store.findOrCreateSession(className, day, period, "S1", "Staff");
+        return new ClassSession(id, className, day, period, "S1", "Staff");
+    }
+
+    private static Attendance row(String email, ClassSession session, boolean present) {
+        Attendance row = new Attendance();
+        row.setStudentEmail(email);
+        row.setSession(session);
+        row.setPresent(present);
+        return row;
+    }
+
+    private static void assertRow(StudentAttendanceReportRow row, String email, long present, long absent,
+                                  long total, double percentage) {
+        assertEquals(email, row.getStudentEmail());
+        assertEquals(present, row.getPresent());
+        assertEquals(absent, row.getAbsent());
+        assertEquals(total, row.getTotal());
+        assertEquals(percentage, row.getPercentage());
+    }
+}
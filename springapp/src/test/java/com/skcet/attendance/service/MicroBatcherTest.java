@@ -0,0 +1,146 @@
+package com.skcet.attendance.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MicroBatcherTest {
+
+    // Long linger: a batch of three closes because it is full, not because time ran out
+    private static final int BATCH = 3;
+    private static final long LINGER_MS = 5_000;
+
+    private MicroBatcher<Integer, String> batcher;
+
+    @AfterEach
+    void tearDown() {
+        if (batcher != null) {
+            batcher.close();
+        }
+    }
+
+    @Test
+    void batchResultsGoToTheirCallersInOrder() throws Exception {
+        List<List<Integer>> flushed = new ArrayList<>();
+        batcher = batcher(items -> {
+            flushed.add(List.copyOf(items));
+            return items.stream().map(i -> "r" + i).toList();
+        });
+
+        List<CompletableFuture<String>> futures = submit(1, 2, 3);
+
+        assertEquals(List.of("r1", "r2", "r3"), results(futures));
+        assertEquals(List.of(List.of(1, 2, 3)), flushed);
+    }
+
+    // Callers are acknowledged only once the flush (the commit) has returned
+    @Test
+    void callersWaitForTheFlushToReturn() throws Exception {
+        CountDownLatch flushing = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        batcher = batcher(items -> {
+            flushing.countDown();
+            await(commit);
+            return items.stream().map(i -> "r" + i).toList();
+        });
+
+        List<CompletableFuture<String>> futures = submit(1, 2, 3);
+        assertTrue(flushing.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertTrue(futures.stream().noneMatch(CompletableFuture::isDone));
+
+        commit.countDown();
+        assertEquals(List.of("r1", "r2", "r3"), results(futures));
+    }
+
+    @Test
+    void failedFlushFailsTheWholeBatch() {
+        IllegalStateException failure = new IllegalStateException("commit failed");
+        batcher = batcher(items -> {
+            throw failure;
+        });
+
+        for (CompletableFuture<String> future : submit(1, 2, 3)) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+            assertEquals(failure, e.getCause());
+        }
+    }
+
+    // Items without a result fail rather than being acknowledged with null; a null element is still a result
+    @Test
+    void missingResultsFailTheirItems() throws Exception {
+        batcher = batcher(items -> Arrays.asList("r" + items.get(0), null));
+
+        List<CompletableFuture<String>> futures = submit(1, 2, 3);
+
+        assertEquals("r1", futures.get(0).get(5, TimeUnit.SECONDS));
+        assertNull(futures.get(1).get(5, TimeUnit.SECONDS));
+        ExecutionException e = assertThrows(ExecutionException.class, () -> futures.get(2).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+
+    @Test
+    void nullResultListFailsEveryItem() {
+        batcher = batcher(items -> null);
+
+        for (CompletableFuture<String> future : submit(1, 2, 3)) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+        }
+    }
+
+    @Test
+    void closeFlushesQueuedItemsAndRejectsNewOnes() throws Exception {
+        batcher = new MicroBatcher<>("test", BATCH, 10, 100, items -> items.stream().map(i -> "r" + i).toList());
+        CompletableFuture<String> queued = batcher.submit(1);
+
+        batcher.close();
+
+        assertEquals("r1", queued.get(5, TimeUnit.SECONDS));
+        ExecutionException e = assertThrows(ExecutionException.class, () -> batcher.submit(2).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+
+    private static MicroBatcher<Integer, String> batcher(Function<List<Integer>, List<String>> flush) {
+        return new MicroBatcher<>("test", BATCH, LINGER_MS, 100, flush);
+    }
+
+    private List<CompletableFuture<String>> submit(Integer... items) {
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (Integer item : items) {
+            futures.add(batcher.submit(item));
+        }
+        return futures;
+    }
+
+    private static List<String> results(List<CompletableFuture<String>> futures) throws Exception {
+        List<String> results = new ArrayList<>();
+        for (CompletableFuture<String> future : futures) {
+            results.add(future.get(5, TimeUnit.SECONDS));
+        }
+        return results;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
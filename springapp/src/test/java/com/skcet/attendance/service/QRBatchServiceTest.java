@@ -0,0 +1,62 @@
+package com.skcet.attendance.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skcet.attendance.dto.AttendanceInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class QRBatchServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private TokenService tokenService;
+    private QRBatchService service;
+
+    @BeforeEach
+    void setUp() {
+        tokenService = new TokenService(new TokenKeyring("1:test-secret", 1), 300_000, 3_600_000);
+        service = new QRBatchService(tokenService, objectMapper, 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    // More entries than one chunk, split unevenly over the pool, still come back in request order
+    @Test
+    void writesEveryEntryInRequestOrder() throws Exception {
+        List<AttendanceInfo> timetable = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            timetable.add(new AttendanceInfo("S1", "Staff", "CSE-" + i, "2024-09-16", "P" + (i % 8 + 1),
+                    "09:00", "09:50", "C1", "Course", "Room 1", "QR"));
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.writeBatch(timetable, out);
+
+        JsonNode entries = objectMapper.readTree(out.toByteArray());
+        assertEquals(600, entries.size());
+        for (int i = 0; i < 600; i++) {
+            JsonNode entry = entries.get(i);
+            assertEquals("CSE-" + i, entry.get("className").asText());
+            assertNotNull(tokenService.validateToken(entry.get("token").asText()));
+        }
+    }
+
+    @Test
+    void emptyTimetableWritesEmptyArray() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.writeBatch(List.of(), out);
+
+        assertEquals("[]", out.toString());
+    }
+}
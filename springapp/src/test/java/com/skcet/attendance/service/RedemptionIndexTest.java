@@ -0,0 +1,136 @@
+package com.skcet.attendance.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RedemptionIndexTest {
+
+    private static final String STUDENT = "student@skcet.ac.in";
+
+    private final RedemptionIndex index = new RedemptionIndex();
+
+    @Test
+    void secondRedemptionIsRefused() {
+        long expiresAt = inAMinute();
+
+        assertFalse(index.isRedeemed("r1", STUDENT));
+        assertTrue(index.tryRedeem("r1", STUDENT, expiresAt));
+        assertTrue(index.isRedeemed("r1", STUDENT));
+        assertFalse(index.tryRedeem("r1", STUDENT, expiresAt));
+        // Emails are compared case-insensitively; another token or student is a separate entry
+        assertFalse(index.tryRedeem("r1", "Student@SKCET.ac.in", expiresAt));
+        assertTrue(index.tryRedeem("r2", STUDENT, expiresAt));
+        assertTrue(index.tryRedeem("r1", "other@skcet.ac.in", expiresAt));
+        assertEquals(3, index.size());
+    }
+
+    // A failed attendance write releases the redemption; the retry takes the same slot
+    @Test
+    void releasedRedemptionCanBeRetried() {
+        assertTrue(index.tryRedeem("r1", STUDENT, inAMinute()));
+
+        index.release("r1", STUDENT);
+
+        assertFalse(index.isRedeemed("r1", STUDENT));
+        assertTrue(index.tryRedeem("r1", STUDENT, inAMinute()));
+        assertTrue(index.isRedeemed("r1", STUDENT));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void expiredEntryIsReusedInPlace() {
+        long expired = System.currentTimeMillis() - 5_000;
+        assertTrue(index.tryRedeem("r1", STUDENT, expired));
+        assertFalse(index.isRedeemed("r1", STUDENT));
+
+        assertTrue(index.tryRedeem("r1", STUDENT, inAMinute()));
+        assertTrue(index.isRedeemed("r1", STUDENT));
+        assertEquals(1, index.size());
+    }
+
+    // Well past the initial 64 x 1024 slots at load 0.5: every shard grows and keeps every live entry
+    @Test
+    void growsPastTheLoadLimitWithoutLosingEntries() {
+        int count = 200_000;
+        long expiresAt = inAMinute();
+        for (int i = 0; i < count; i++) {
+            assertTrue(index.tryRedeem("r" + i, STUDENT, expiresAt), "r" + i);
+        }
+        assertEquals(count, index.size());
+        for (int i = 0; i < count; i++) {
+            assertFalse(index.tryRedeem("r" + i, STUDENT, expiresAt), "r" + i);
+        }
+        assertEquals(count, index.size());
+    }
+
+    // Expired entries are dropped when a full shard is rehashed, so they do not count towards growth
+    @Test
+    void rehashPurgesExpiredEntries() {
+        int count = 100_000;
+        long expired = System.currentTimeMillis() - 5_000;
+        for (int i = 0; i < count; i++) {
+            index.tryRedeem("old" + i, STUDENT, expired);
+        }
+        long expiresAt = inAMinute();
+        for (int i = 0; i < count; i++) {
+            assertTrue(index.tryRedeem("new" + i, STUDENT, expiresAt), "new" + i);
+        }
+
+        assertTrue(index.size() < 2 * count, "size " + index.size());
+        for (int i = 0; i < count; i++) {
+            assertTrue(index.isRedeemed("new" + i, STUDENT), "new" + i);
+        }
+    }
+
+    // Threads racing over the same keys: each key is redeemed exactly once
+    @Test
+    void concurrentRedemptionsOfOneKeyHaveOneWinner() throws Exception {
+        int threads = 8;
+        int keys = 20_000;
+        long expiresAt = inAMinute();
+        AtomicIntegerArray wins = new AtomicIntegerArray(keys);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < keys; i++) {
+                        if (index.tryRedeem("r" + i, STUDENT, expiresAt)) {
+                            wins.incrementAndGet(i);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        for (int i = 0; i < keys; i++) {
+            assertEquals(1, wins.get(i), "r" + i);
+        }
+        assertEquals(keys, index.size());
+    }
+
+    private static long inAMinute() {
+        return System.currentTimeMillis() + 60_000;
+    }
+}
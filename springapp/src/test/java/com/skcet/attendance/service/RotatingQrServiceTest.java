@@ -0,0 +1,41 @@
+package com.skcet.attendance.service;
+
+import com.skcet.attendance.dto.AttendanceInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RotatingQrServiceTest {
+
+    private RotatingQrService service;
+
+    @BeforeEach
+    void setUp() {
+        TokenService tokenService = new TokenService(new TokenKeyring("1:test-secret", 1), 300_000, 3_600_000);
+        service = new RotatingQrService(tokenService, 10, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void refusesStreamsBeyondTheLimit() {
+        assertNotNull(service.openStream(info(), null));
+        assertNotNull(service.openStream(info(), 5));
+        assertEquals(2, service.getOpenStreams());
+
+        assertThrows(IllegalStateException.class, () -> service.openStream(info(), null));
+        assertEquals(2, service.getOpenStreams());
+    }
+
+    private static AttendanceInfo info() {
+        return new AttendanceInfo("S1", "Staff", "CSE-A", "2024-09-16", "3", "09:00", "09:50",
+                "C1", "Course", "Room 1", "QR");
+    }
+}
@@ -0,0 +1,89 @@
+package com.skcet.attendance.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ScanSessionStoreTest {
+
+    // 62 ticks per TTL, so a 6.2 s TTL moves to the next wheel slot every 100 ms
+    private static final long TTL_MS = 6_200;
+
+    private ScanSessionStore store;
+
+    @AfterEach
+    void tearDown() {
+        if (store != null) {
+            store.shutdown();
+        }
+    }
+
+    @Test
+    void removedSessionIsReturnedOnce() {
+        store = new ScanSessionStore(TTL_MS, 100);
+        store.put("s1", "a@skcet.ac.in", null);
+
+        assertEquals("a@skcet.ac.in", store.get("s1").getEmail());
+        assertNotNull(store.remove("s1"));
+        assertNull(store.remove("s1"));
+        assertNull(store.get("s1"));
+    }
+
+    @Test
+    void expiredSessionIsDroppedByTheWheel() throws InterruptedException {
+        store = new ScanSessionStore(200, 100);
+        store.put("s1", "a@skcet.ac.in", null);
+
+        for (int i = 0; i < 100 && store.size() > 0; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(0, store.size());
+        assertEquals(1, store.getExpirationCount());
+        assertNull(store.get("s1"));
+    }
+
+    @Test
+    void fullStoreEvictsTheSessionClosestToExpiry() throws InterruptedException {
+        store = new ScanSessionStore(TTL_MS, 2);
+        store.put("s1", "a@skcet.ac.in", null);
+        Thread.sleep(150);
+        store.put("s2", "b@skcet.ac.in", null);
+        store.put("s3", "c@skcet.ac.in", null);
+
+        assertNull(store.get("s1"));
+        assertNotNull(store.get("s2"));
+        assertNotNull(store.get("s3"));
+        assertEquals(1, store.getEvictionCount());
+    }
+
+    // Putting an id again queues it for its new deadline; the entry left in the old slot must not evict it
+    @Test
+    void reputSessionIsNotEvictedByItsOldDeadline() throws InterruptedException {
+        store = new ScanSessionStore(TTL_MS, 2);
+        store.put("s1", "a@skcet.ac.in", null);
+        store.put("s2", "b@skcet.ac.in", null);
+        Thread.sleep(150);
+        store.put("s1", "a@skcet.ac.in", null);
+        store.put("s3", "c@skcet.ac.in", null);
+
+        assertNotNull(store.get("s1"));
+        assertNull(store.get("s2"));
+        assertNotNull(store.get("s3"));
+        assertEquals(1, store.getEvictionCount());
+    }
+
+    @Test
+    void reputSessionOutlivesItsOldDeadline() throws InterruptedException {
+        store = new ScanSessionStore(620, 100);
+        store.put("s1", "a@skcet.ac.in", null);
+        Thread.sleep(300);
+        store.put("s1", "a@skcet.ac.in", null);
+        Thread.sleep(450);
+
+        assertNotNull(store.get("s1"));
+        assertEquals(0, store.getExpirationCount());
+    }
+}
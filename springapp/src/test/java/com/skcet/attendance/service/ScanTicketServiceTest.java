@@ -0,0 +1,78 @@
+package com.skcet.attendance.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ScanTicketServiceTest {
+
+    private TokenService tokenService;
+    private ScanSessionStore sessionStore;
+
+    @BeforeEach
+    void setUp() {
+        tokenService = new TokenService(new TokenKeyring("1:test-secret", 1), 300_000, 3_600_000);
+        sessionStore = new ScanSessionStore(300_000, 1000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        sessionStore.shutdown();
+    }
+
+    @Test
+    void closedTicketNoLongerResolves() {
+        ScanTicketService tickets = new ScanTicketService(tokenService, sessionStore, 60_000, true);
+        String ticket = tickets.open("student@skcet.ac.in", payload());
+
+        ScanSessionStore.ScanSession session = tickets.resolve(ticket);
+        assertNotNull(session);
+        assertEquals("student@skcet.ac.in", session.getEmail());
+
+        tickets.close(ticket);
+        assertNull(tickets.resolve(ticket));
+    }
+
+    @Test
+    void closingOneTicketLeavesOthersValid() {
+        ScanTicketService tickets = new ScanTicketService(tokenService, sessionStore, 60_000, true);
+        String first = tickets.open("a@skcet.ac.in", payload());
+        String second = tickets.open("b@skcet.ac.in", payload());
+
+        tickets.close(first);
+
+        assertNull(tickets.resolve(first));
+        assertNotNull(tickets.resolve(second));
+    }
+
+    @Test
+    void expiredTicketDoesNotResolve() throws InterruptedException {
+        ScanTicketService tickets = new ScanTicketService(tokenService, sessionStore, 1, true);
+        String ticket = tickets.open("student@skcet.ac.in", payload());
+        Thread.sleep(5);
+
+        assertNull(tickets.resolve(ticket));
+    }
+
+    @Test
+    void storedSessionIsRemovedOnClose() {
+        ScanTicketService tickets = new ScanTicketService(tokenService, sessionStore, 60_000, false);
+        String sessionId = tickets.open("student@skcet.ac.in", payload());
+        assertNotNull(tickets.resolve(sessionId));
+
+        tickets.close(sessionId);
+        assertNull(tickets.resolve(sessionId));
+    }
+
+    private TokenService.AttendancePayload payload() {
+        String token = tokenService.generateToken("S1", "Staff", "2024-09-16", "3", "09:00", "09:50",
+                "C1", "Course", "Room 1", "QR", "CSE-A");
+        TokenService.AttendancePayload payload = tokenService.validateToken(token);
+        assertNotNull(payload);
+        return payload;
+    }
+}
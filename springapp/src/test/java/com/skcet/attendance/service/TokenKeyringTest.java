@@ -0,0 +1,159 @@
+package com.skcet.attendance.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenKeyringTest {
+
+    // The secret built into earlier releases, public in the repository history
+    private static final String LEGACY_SECRET = "attendance-secret-key-2024";
+    private static final String FAR_FUTURE = "2999-01-01T00:00:00Z";
+
+    private Path keysFile;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        keysFile = Files.createTempFile("qr-keys", ".properties");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        Files.deleteIfExists(keysFile);
+    }
+
+    @Test
+    void rotatesThroughTheKeyFile() throws Exception {
+        write("qr.keys=1:first-secret\nqr.active-key-id=1\n", 1_000);
+        TokenKeyring keyring = new TokenKeyring("", 0, keysFile.toString(), 0);
+        TokenService tokens = new TokenService(keyring, 300_000, 3_600_000);
+        String oldToken = generate(tokens);
+        assertEquals(1, keyring.getActiveKeyId());
+
+        // New key active, old one kept so tokens already handed out still validate
+        write("qr.keys=1:first-secret,2:second-secret\nqr.active-key-id=2\n", 2_000);
+        assertTrue(keyring.reloadFromFile(false));
+        assertEquals(2, keyring.getActiveKeyId());
+        assertNotNull(tokens.validateToken(oldToken));
+        String newToken = generate(tokens);
+
+        // Old key dropped: only what it signed stops validating
+        write("qr.keys=2:second-secret\nqr.active-key-id=2\n", 3_000);
+        assertTrue(keyring.reloadFromFile(false));
+        assertNull(tokens.validateToken(oldToken));
+        assertNotNull(tokens.validateToken(newToken));
+    }
+
+    @Test
+    void unchangedFileIsNotReloaded() throws Exception {
+        write("qr.keys=1:first-secret\nqr.active-key-id=1\n", 1_000);
+        TokenKeyring keyring = new TokenKeyring("", 0, keysFile.toString(), 0);
+
+        assertFalse(keyring.reloadFromFile(false));
+        assertTrue(keyring.reloadFromFile(true));
+    }
+
+    @Test
+    void invalidFileKeepsCurrentKeys() throws Exception {
+        write("qr.keys=1:first-secret\nqr.active-key-id=1\n", 1_000);
+        TokenKeyring keyring = new TokenKeyring("", 0, keysFile.toString(), 0);
+
+        write("qr.keys=1:first-secret\nqr.active-key-id=7\n", 2_000);
+        assertThrows(IllegalArgumentException.class, () -> keyring.reloadFromFile(false));
+        assertEquals(1, keyring.getActiveKeyId());
+    }
+
+    @Test
+    void startupFailsWithoutKeys() throws Exception {
+        assertThrows(IllegalArgumentException.class, () -> new TokenKeyring("", 1));
+
+        write("qr.keys=\nqr.active-key-id=1\n", 1_000);
+        assertThrows(IllegalArgumentException.class, () -> new TokenKeyring("", 1, keysFile.toString(), 0));
+    }
+
+    // The old built-in secret signed v2 tokens as key id 0; it is not in the ring unless configured
+    @Test
+    void keyIdZeroTokenFailsWithoutTheLegacyKey() {
+        String forged = generate(new TokenService(new TokenKeyring("0:" + LEGACY_SECRET, 0), 300_000, 3_600_000));
+
+        TokenService tokens = new TokenService(
+                new TokenKeyring("1:first-secret", 1, "", 0, true, LEGACY_SECRET, FAR_FUTURE), 300_000, 3_600_000);
+        assertNull(tokens.validateToken(forged));
+        assertNull(new TokenService(new TokenKeyring("1:first-secret", 1), 300_000, 3_600_000).validateToken(forged));
+    }
+
+    @Test
+    void legacyTokensNeedTheFlagAndAnEndDate() throws Exception {
+        String legacy = legacyToken(LEGACY_SECRET);
+
+        assertNull(service(new TokenKeyring("1:first-secret", 1)).validateToken(legacy));
+        assertNotNull(service(new TokenKeyring("1:first-secret", 1, "", 0, true, LEGACY_SECRET, FAR_FUTURE))
+                .validateToken(legacy));
+        assertNull(service(new TokenKeyring("1:first-secret", 1, "", 0, true, LEGACY_SECRET, "2020-01-01T00:00:00Z"))
+                .validateToken(legacy));
+        assertNull(service(new TokenKeyring("1:first-secret", 1, "", 0, true, "other-secret", FAR_FUTURE))
+                .validateToken(legacy));
+        assertThrows(IllegalArgumentException.class,
+                () -> new TokenKeyring("1:first-secret", 1, "", 0, true, LEGACY_SECRET, ""));
+    }
+
+    // New tokens are always signed with a ring key, never with the legacy secret
+    @Test
+    void legacySecretNeverSigns() {
+        TokenKeyring keyring = new TokenKeyring("1:first-secret", 1, "", 0, true, LEGACY_SECRET, FAR_FUTURE);
+        String token = generate(service(keyring));
+
+        assertEquals(1, Base64.getUrlDecoder().decode(token)[1]);
+        assertNull(service(new TokenKeyring("1:" + LEGACY_SECRET, 1)).validateToken(token));
+        assertThrows(IllegalArgumentException.class,
+                () -> new TokenKeyring("1:first-secret", 0, "", 0, true, LEGACY_SECRET, FAR_FUTURE));
+    }
+
+    @Test
+    void reloadWithoutKeyFileFails() {
+        TokenKeyring keyring = new TokenKeyring("1:first-secret", 1);
+
+        assertThrows(IllegalStateException.class, () -> keyring.reloadFromFile(true));
+    }
+
+    private void write(String content, long modified) throws Exception {
+        Files.writeString(keysFile, content);
+        Files.setLastModifiedTime(keysFile, FileTime.fromMillis(modified));
+    }
+
+    private static TokenService service(TokenKeyring keyring) {
+        return new TokenService(keyring, 300_000, 3_600_000);
+    }
+
+    // Pre-binary format: Base64("{json}_" + Base64(HMAC(json)))
+    private static String legacyToken(String secret) throws Exception {
+        String json = new ObjectMapper().writeValueAsString(new TokenService.AttendancePayload(
+                System.currentTimeMillis(), "legacy-nonce", "S1", "Staff", "2024-09-16", "3", "09:00", "09:50",
+                "C1", "Course", "Room 1", "QR", "CSE-A"));
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        String signature = Base64.getEncoder().encodeToString(mac.doFinal(json.getBytes(StandardCharsets.UTF_8)));
+        return Base64.getEncoder().encodeToString((json + "_" + signature).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String generate(TokenService tokens) {
+        return tokens.generateToken("S1", "Staff", "2024-09-16", "3", "09:00", "09:50",
+                "C1", "Course", "Room 1", "QR", "CSE-A");
+    }
+}
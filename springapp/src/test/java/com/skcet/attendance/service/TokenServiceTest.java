@@ -0,0 +1,148 @@
+package com.skcet.attendance.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skcet.attendance.dto.AttendanceInfo;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenServiceTest {
+
+    private static final long TTL_MS = 300_000;
+    private static final String LEGACY_SECRET = "legacy-test-secret";
+
+    private final TokenService tokens = new TokenService(new TokenKeyring("1:test-secret", 1), TTL_MS, 3_600_000);
+
+    @Test
+    void roundTripKeepsEveryField() {
+        long before = System.currentTimeMillis();
+        TokenService.AttendancePayload payload = tokens.validateToken(generate());
+
+        assertNotNull(payload);
+        assertTrue(payload.getTimestamp() >= before && payload.getTimestamp() <= System.currentTimeMillis());
+        assertEquals(payload.getTimestamp() + TTL_MS, payload.getExpiresAt());
+        assertEquals(16, payload.getRandomId().length());
+        assertEquals(Arrays.asList("S1", "Staff", "2024-09-16", "3", "09:00", "09:50",
+                        "C1", "Course", "Room 1", "QR", "CSE-A"),
+                Arrays.asList(payload.getStaffId(), payload.getStaffName(), payload.getSessionDate(),
+                        payload.getPeriod(), payload.getStartTime(), payload.getEndTime(), payload.getCourseId(),
+                        payload.getCourseName(), payload.getLocation(), payload.getAttendanceType(),
+                        payload.getClassName()));
+    }
+
+    // The nonce is what single-use redemption keys on
+    @Test
+    void everyTokenHasItsOwnNonce() {
+        assertNotEquals(tokens.validateToken(generate()).getRandomId(), tokens.validateToken(generate()).getRandomId());
+    }
+
+    @Test
+    void tamperedTokensAreRejected() {
+        byte[] buf = Base64.getUrlDecoder().decode(generate());
+
+        // Header, signature and payload are all covered by the MAC
+        assertNull(tokens.validateToken(flip(buf, 5)));
+        assertNull(tokens.validateToken(flip(buf, TokenService.HEADER_LENGTH + 7)));
+        assertNull(tokens.validateToken(flip(buf, buf.length - 1)));
+        // Cut inside the signature, and cut inside the payload
+        assertNull(tokens.validateToken(encode(Arrays.copyOf(buf, TokenService.PAYLOAD_OFFSET - 1))));
+        assertNull(tokens.validateToken(encode(Arrays.copyOf(buf, buf.length - 3))));
+        // Unknown version and unknown key id
+        assertNull(tokens.validateToken(withByte(buf, 0, (byte) 9)));
+        assertNull(tokens.validateToken(withByte(buf, 1, (byte) 7)));
+        // Not Base64 at all, and nothing
+        assertNull(tokens.validateToken("not a token!"));
+        assertNull(tokens.validateToken(""));
+        assertNull(tokens.validateToken(null));
+    }
+
+    @Test
+    void tokenFromAnotherKeyIsRejected() {
+        TokenService other = new TokenService(new TokenKeyring("1:other-secret", 1), TTL_MS, 3_600_000);
+
+        assertNull(tokens.validateToken(other.generateToken(info(), System.currentTimeMillis())));
+    }
+
+    // Valid from 30 s before their timestamp (clock skew between servers) until the TTL runs out
+    @Test
+    void expiryAndClockSkew() {
+        long now = System.currentTimeMillis();
+
+        assertNotNull(tokens.validateToken(tokens.generateToken(info(), now - TTL_MS + 10_000)));
+        assertNull(tokens.validateToken(tokens.generateToken(info(), now - TTL_MS - 10_000)));
+        assertNotNull(tokens.validateToken(tokens.generateToken(info(), now + 20_000)));
+        assertNull(tokens.validateToken(tokens.generateToken(info(), now + 40_000)));
+    }
+
+    @Test
+    void legacyTokensValidateWithTheLegacySecret() throws Exception {
+        TokenService legacy = new TokenService(new TokenKeyring("1:test-secret", 1, "", 0, true, LEGACY_SECRET,
+                "2999-01-01T00:00:00Z"), TTL_MS, 3_600_000);
+        long now = System.currentTimeMillis();
+
+        TokenService.AttendancePayload payload = legacy.validateToken(legacyToken(LEGACY_SECRET, now, "S1"));
+        assertNotNull(payload);
+        assertEquals("legacy-nonce", payload.getRandomId());
+        assertEquals("CSE-A", payload.getClassName());
+        assertEquals(now + TTL_MS, payload.getExpiresAt());
+
+        assertNull(legacy.validateToken(legacyToken("other-secret", now, "S1")));
+        assertNull(legacy.validateToken(legacyToken(LEGACY_SECRET, now - TTL_MS - 10_000, "S1")));
+        // Signed over one payload, presented with another
+        String genuine = new String(Base64.getDecoder().decode(legacyToken(LEGACY_SECRET, now, "S1")), StandardCharsets.UTF_8);
+        String forged = genuine.replace("\"staffId\":\"S1\"", "\"staffId\":\"S2\"");
+        assertNull(legacy.validateToken(Base64.getEncoder().encodeToString(forged.getBytes(StandardCharsets.UTF_8))));
+        // Without the legacy key configured they are not accepted at all
+        assertNull(tokens.validateToken(legacyToken(LEGACY_SECRET, now, "S1")));
+    }
+
+    private String generate() {
+        return tokens.generateToken("S1", "Staff", "2024-09-16", "3", "09:00", "09:50",
+                "C1", "Course", "Room 1", "QR", "CSE-A");
+    }
+
+    private static AttendanceInfo info() {
+        AttendanceInfo info = new AttendanceInfo();
+        info.setStaffId("S1");
+        info.setStaffName("Staff");
+        info.setSessionDate("2024-09-16");
+        info.setPeriod("3");
+        info.setClassName("CSE-A");
+        return info;
+    }
+
+    private static String flip(byte[] buf, int index) {
+        return withByte(buf, index, (byte) (buf[index] ^ 0x01));
+    }
+
+    private static String withByte(byte[] buf, int index, byte value) {
+        byte[] copy = buf.clone();
+        copy[index] = value;
+        return encode(copy);
+    }
+
+    private static String encode(byte[] buf) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buf);
+    }
+
+    // Pre-binary format: Base64("{json}_" + Base64(HMAC(json)))
+    private static String legacyToken(String secret, long timestamp, String staffId) throws Exception {
+        String json = new ObjectMapper().writeValueAsString(new TokenService.AttendancePayload(
+                timestamp, "legacy-nonce", staffId, "Staff", "2024-09-16", "3", "09:00", "09:50",
+                "C1", "Course", "Room 1", "QR", "CSE-A"));
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        String signature = Base64.getEncoder().encodeToString(mac.doFinal(json.getBytes(StandardCharsets.UTF_8)));
+        return Base64.getEncoder().encodeToString((json + "_" + signature).getBytes(StandardCharsets.UTF_8));
+    }
+}